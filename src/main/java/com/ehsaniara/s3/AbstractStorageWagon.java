@@ -36,15 +36,15 @@ public abstract class AbstractStorageWagon implements Wagon {
 
     private static final boolean SUPPORTS_DIRECTORY_COPY = true;
 
-    private int connectionTimeOut = 0;
-    private int readConnectionTimeOut = 0;
+    private volatile int connectionTimeOut = 0;
+    private volatile int readConnectionTimeOut = 0;
 
-    protected Repository repository = null;
+    protected volatile Repository repository = null;
 
     protected final SessionListenerContainer sessionListenerContainer;
     protected final ListenerContainer listenerContainer;
 
-    private boolean interactive;
+    private volatile boolean interactive;
 
     /**
      * <p>Constructor for AbstractStorageWagon.</p>
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * <p>ArtifactCache class.</p>
+ * <p>
+ * A read-through cache of downloaded objects on the local disk, meant to be shared by all builds
+ * on a host. Every object has its own entry directory holding the content, named after its ETag,
+ * and an {@code entry.properties} file with the ETag and the time it was last validated.
+ * <p>
+ * Release artifacts never change once deployed, so a cached copy is served without asking S3.
+ * Snapshots and {@code maven-metadata} files are revalidated with {@code If-None-Match} once the
+ * TTL has passed. Entries are locked with file locks while they are read or written, so several
+ * Maven processes can use the same cache directory, and the least recently used entries are
+ * evicted whenever the cache grows beyond its size limit. The size of the cache is scanned once
+ * per JVM and then kept up to date by the downloads of this JVM, the directory is only scanned
+ * again when that estimate crosses the limit.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public class ArtifactCache {
+
+    private static final String PROPERTIES_FILE = "entry.properties";
+    private static final String LOCK_FILE = "lock";
+    private static final String EVICT_LOCK_FILE = "evict.lock";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // file locks are held per JVM, so threads of the same build are serialized here first
+    private static final ReentrantLock[] LOCKS = new ReentrantLock[64];
+    private static final ReentrantLock EVICT_LOCK = new ReentrantLock();
+    // estimated size of each cache directory, corrected by every eviction scan
+    private static final Map<File, AtomicLong> SIZES = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    private final File directory;
+    private final long maxSize;
+    private final long ttlMillis;
+
+    /**
+     * <p>Constructor for ArtifactCache.</p>
+     *
+     * @param property a {@link com.ehsaniara.s3.ArtifactCacheProperty} object.
+     */
+    public ArtifactCache(ArtifactCacheProperty property) {
+        this.directory = property.getDirectory();
+        this.maxSize = property.getMaxSize();
+        this.ttlMillis = property.getTtlMillis();
+    }
+
+    /**
+     * Opens and locks the entry of an object, the entry must be closed to release the lock.
+     *
+     * @param bucket a {@link java.lang.String} object.
+     * @param key    a {@link java.lang.String} object.
+     * @return a {@link com.ehsaniara.s3.ArtifactCache.Entry} object.
+     * @throws java.io.IOException if the entry could not be locked.
+     */
+    public Entry open(String bucket, String key) throws IOException {
+        String hash = Digests.sha1(bucket + '/' + key);
+        File entryDirectory = new File(directory, hash);
+        if (!entryDirectory.isDirectory() && !entryDirectory.mkdirs() && !entryDirectory.isDirectory()) {
+            throw new IOException("Could not create cache directory " + entryDirectory);
+        }
+
+        ReentrantLock lock = LOCKS[(hash.hashCode() & Integer.MAX_VALUE) % LOCKS.length];
+        lock.lock();
+        RandomAccessFile lockFile = null;
+        try {
+            lockFile = new RandomAccessFile(new File(entryDirectory, LOCK_FILE), "rw");
+            FileLock fileLock = lockFile.getChannel().lock();
+            return new Entry(key, entryDirectory, lock, lockFile, fileLock);
+        } catch (IOException | RuntimeException e) {
+            if (lockFile != null) {
+                lockFile.close();
+            }
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Reports the content of a file to the progress, as it would have been reported by a download.
+     *
+     * @param file     a {@link java.io.File} object.
+     * @param progress a {@link com.ehsaniara.s3.Progress} object.
+     * @throws java.io.IOException if any.
+     */
+    public static void replay(File file, Progress progress) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = new FileInputStream(file)) {
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                progress.progress(buffer, count);
+            }
+        }
+    }
+
+    void grown(long bytes) {
+        AtomicLong size = SIZES.get(directory.getAbsoluteFile());
+        if (size == null || size.addAndGet(bytes) > maxSize) {
+            evict();
+        }
+    }
+
+    void evict() {
+        if (!EVICT_LOCK.tryLock()) {
+            return;
+        }
+        try (RandomAccessFile lockFile = new RandomAccessFile(new File(directory, EVICT_LOCK_FILE), "rw");
+             FileLock fileLock = lockFile.getChannel().tryLock()) {
+            if (fileLock == null) {
+                // another build is already evicting
+                return;
+            }
+
+            List<Candidate> candidates = new ArrayList<>();
+            long total = 0;
+            File[] entries = directory.listFiles(File::isDirectory);
+            for (File entryDirectory : entries == null ? new File[0] : entries) {
+                File properties = new File(entryDirectory, PROPERTIES_FILE);
+                String data = load(properties).getProperty("data");
+                if (data != null) {
+                    long length = new File(entryDirectory, data).length();
+                    total += length;
+                    candidates.add(new Candidate(entryDirectory, properties.lastModified(), length));
+                }
+            }
+            try {
+                if (total <= maxSize) {
+                    return;
+                }
+                candidates.sort(Comparator.comparingLong(candidate -> candidate.accessed));
+                for (Candidate candidate : candidates) {
+                    if (total <= maxSize) {
+                        break;
+                    }
+                    if (tryRemove(candidate.directory)) {
+                        total -= candidate.length;
+                    }
+                }
+            } finally {
+                SIZES.put(directory.getAbsoluteFile(), new AtomicLong(total));
+            }
+        } catch (IOException | OverlappingFileLockException e) {
+            log.log(Level.FINE, "Could not evict cache entries", e);
+        } finally {
+            EVICT_LOCK.unlock();
+        }
+    }
+
+    private boolean tryRemove(File entryDirectory) throws IOException {
+        ReentrantLock lock = LOCKS[(entryDirectory.getName().hashCode() & Integer.MAX_VALUE) % LOCKS.length];
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try (RandomAccessFile lockFile = new RandomAccessFile(new File(entryDirectory, LOCK_FILE), "rw");
+             FileLock fileLock = lockFile.getChannel().tryLock()) {
+            if (fileLock == null) {
+                return false;
+            }
+            File properties = new File(entryDirectory, PROPERTIES_FILE);
+            String data = load(properties).getProperty("data");
+            Files.deleteIfExists(properties.toPath());
+            if (data != null) {
+                Files.deleteIfExists(new File(entryDirectory, data).toPath());
+            }
+            log.fine(String.format("Evicted cache entry %s", entryDirectory.getName()));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Properties load(File file) {
+        Properties properties = new Properties();
+        if (file.isFile()) {
+            try (InputStream inputStream = new FileInputStream(file)) {
+                properties.load(inputStream);
+            } catch (IOException e) {
+                log.log(Level.FINE, "Ignoring unreadable cache entry " + file, e);
+            }
+        }
+        return properties;
+    }
+
+    static boolean isMutable(String key) {
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        return key.contains("-SNAPSHOT") || name.startsWith("maven-metadata");
+    }
+
+    /**
+     * The locked cache entry of a single object.
+     */
+    public final class Entry implements Closeable {
+
+        private final String key;
+        private final File entryDirectory;
+        private final ReentrantLock lock;
+        private final RandomAccessFile lockFile;
+        private final FileLock fileLock;
+        private final Properties properties;
+        private boolean stored;
+        private long grown;
+
+        private Entry(String key, File entryDirectory, ReentrantLock lock, RandomAccessFile lockFile, FileLock fileLock) {
+            this.key = key;
+            this.entryDirectory = entryDirectory;
+            this.lock = lock;
+            this.lockFile = lockFile;
+            this.fileLock = fileLock;
+            this.properties = load(new File(entryDirectory, PROPERTIES_FILE));
+        }
+
+        /**
+         * <p>getETag.</p>
+         *
+         * @return the ETag of the cached content, or null if nothing usable is cached.
+         */
+        public String getETag() {
+            String data = properties.getProperty("data");
+            if (data == null || !new File(entryDirectory, data).isFile()) {
+                return null;
+            }
+            return properties.getProperty("etag");
+        }
+
+        /**
+         * <p>isFresh.</p>
+         *
+         * @return true if the cached content can be used without revalidating it.
+         */
+        public boolean isFresh() {
+            if (getETag() == null) {
+                return false;
+            }
+            if (!isMutable(key)) {
+                return true;
+            }
+            long validated;
+            try {
+                validated = Long.parseLong(properties.getProperty("validated", "0"));
+            } catch (NumberFormatException e) {
+                log.log(Level.FINE, "Revalidating cache entry of " + key + " with an unreadable validation time", e);
+                return false;
+            }
+            return System.currentTimeMillis() - validated < ttlMillis;
+        }
+
+        /**
+         * Records that S3 confirmed the cached content is still current.
+         *
+         * @throws java.io.IOException if any.
+         */
+        public void validated() throws IOException {
+            properties.setProperty("validated", Long.toString(System.currentTimeMillis()));
+            save();
+        }
+
+        /**
+         * <p>newTempFile.</p>
+         *
+         * @return a {@link java.io.File} object to download new content into before {@link #store}.
+         * @throws java.io.IOException if any.
+         */
+        public File newTempFile() throws IOException {
+            return Files.createTempFile(entryDirectory.toPath(), "data.", ".s3tmp").toFile();
+        }
+
+        /**
+         * Replaces the cached content with a downloaded file.
+         *
+         * @param file the downloaded content, moved into the cache.
+         * @param eTag a {@link java.lang.String} object.
+         * @throws java.io.IOException if any.
+         */
+        public void store(File file, String eTag) throws IOException {
+            String previous = properties.getProperty("data");
+            String data = Digests.sha1(eTag == null ? "" : eTag);
+            long replaced = previous == null ? 0 : new File(entryDirectory, previous).length();
+            AtomicFileWriter.moveIntoPlace(file.toPath(), new File(entryDirectory, data).toPath());
+
+            properties.setProperty("key", key);
+            properties.setProperty("etag", eTag == null ? "" : eTag);
+            properties.setProperty("data", data);
+            properties.setProperty("validated", Long.toString(System.currentTimeMillis()));
+            save();
+
+            if (previous != null && !previous.equals(data)) {
+                Files.deleteIfExists(new File(entryDirectory, previous).toPath());
+            }
+            grown += new File(entryDirectory, data).length() - replaced;
+            stored = true;
+        }
+
+        /**
+         * Places the cached content at the destination, as a hard link where the file system
+         * allows it and as a copy otherwise.
+         *
+         * @param destination a {@link java.io.File} object.
+         * @throws java.io.IOException if any.
+         */
+        public void copyTo(File destination) throws IOException {
+            Path data = new File(entryDirectory, properties.getProperty("data")).toPath();
+            Path target = destination.toPath();
+            destination.getParentFile().mkdirs();
+            Files.deleteIfExists(target);
+            try {
+                Files.createLink(target, data);
+            } catch (IOException | UnsupportedOperationException e) {
+                log.log(Level.FINER, String.format("Could not link %s, copying it", target), e);
+                Path temp = Files.createTempFile(target.getParent(), destination.getName() + ".", ".s3tmp");
+                try {
+                    Files.copy(data, temp, StandardCopyOption.REPLACE_EXISTING);
+                    AtomicFileWriter.moveIntoPlace(temp, target);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+            // the modification time of the properties file tracks the last access for eviction
+            new File(entryDirectory, PROPERTIES_FILE).setLastModified(System.currentTimeMillis());
+        }
+
+        private void save() throws IOException {
+            Path temp = Files.createTempFile(entryDirectory.toPath(), PROPERTIES_FILE + ".", ".s3tmp");
+            try (OutputStream outputStream = new FileOutputStream(temp.toFile())) {
+                properties.store(outputStream, null);
+            }
+            AtomicFileWriter.moveIntoPlace(temp, new File(entryDirectory, PROPERTIES_FILE).toPath());
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                fileLock.release();
+                lockFile.close();
+            } finally {
+                lock.unlock();
+            }
+            if (stored) {
+                grown(grown);
+            }
+        }
+    }
+
+    private static final class Candidate {
+        private final File directory;
+        private final long accessed;
+        private final long length;
+
+        private Candidate(File directory, long accessed, long length) {
+            this.directory = directory;
+            this.accessed = accessed;
+            this.length = length;
+        }
+    }
+}
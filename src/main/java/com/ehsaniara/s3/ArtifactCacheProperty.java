@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>ArtifactCacheProperty class.</p>
+ * <p>
+ * The local artifact cache is off unless a cache directory is set in the wagon configuration or
+ * as a system property.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class ArtifactCacheProperty {
+
+    private static final String DIRECTORY_PROP = "S3_CACHE_DIRECTORY";
+    private static final String MAX_SIZE_PROP = "S3_CACHE_MAX_SIZE";
+    private static final String TTL_PROP = "S3_CACHE_TTL";
+
+    static final long DEFAULT_MAX_SIZE = 10 * ByteSize.GB;
+    static final long DEFAULT_TTL_SECONDS = 60;
+
+    private final String directory;
+    private final String maxSize;
+    private final String ttl;
+
+    /**
+     * <p>Constructor for ArtifactCacheProperty.</p>
+     *
+     * @param directory a {@link java.lang.String} object, the cache root.
+     * @param maxSize   a {@link java.lang.String} object, e.g. {@code 10GB}.
+     * @param ttl       a {@link java.lang.String} object, seconds before snapshots and metadata are revalidated.
+     */
+    public ArtifactCacheProperty(String directory, String maxSize, String ttl) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    /**
+     * <p>empty.</p>
+     *
+     * @return a {@link com.ehsaniara.s3.ArtifactCacheProperty} object with the cache disabled.
+     */
+    public static ArtifactCacheProperty empty() {
+        return new ArtifactCacheProperty(null, null, null);
+    }
+
+    /**
+     * <p>isEnabled.</p>
+     *
+     * @return true if a cache directory is configured.
+     */
+    public boolean isEnabled() {
+        String value = value(directory, DIRECTORY_PROP);
+        return value != null && !value.trim().isEmpty();
+    }
+
+    /**
+     * <p>getDirectory.</p>
+     *
+     * @return a {@link java.io.File} object.
+     */
+    public File getDirectory() {
+        return new File(value(directory, DIRECTORY_PROP).trim());
+    }
+
+    /**
+     * <p>getMaxSize.</p>
+     *
+     * @return the size in bytes above which the least recently used entries are evicted.
+     */
+    public long getMaxSize() {
+        return ByteSize.parse(value(maxSize, MAX_SIZE_PROP), DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * <p>getTtlMillis.</p>
+     *
+     * @return how long a cached snapshot or metadata file is served without asking S3.
+     */
+    public long getTtlMillis() {
+        String value = value(ttl, TTL_PROP);
+        if (value == null || value.trim().isEmpty()) {
+            return TimeUnit.SECONDS.toMillis(DEFAULT_TTL_SECONDS);
+        }
+        return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value.trim())));
+    }
+
+    private static String value(String configured, String systemProperty) {
+        if (configured != null) {
+            return configured;
+        }
+        return System.getProperty(systemProperty);
+    }
+}
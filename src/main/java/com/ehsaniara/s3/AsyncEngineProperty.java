@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+/**
+ * <p>AsyncEngineProperty class.</p>
+ * <p>
+ * The asynchronous transfer engine is off unless enabled in the wagon configuration or as a
+ * system property.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class AsyncEngineProperty {
+
+    private static final String ENABLED_PROP = "S3_ASYNC_ENGINE";
+    private static final String CONCURRENCY_PROP = "S3_ASYNC_CONCURRENCY";
+
+    // stays below the 50 connections of the SDK's default asynchronous HTTP client
+    static final int DEFAULT_CONCURRENCY = 32;
+
+    private final String enabled;
+    private final String concurrency;
+
+    /**
+     * <p>Constructor for AsyncEngineProperty.</p>
+     *
+     * @param enabled     a {@link java.lang.String} object, {@code true} to enable the engine.
+     * @param concurrency a {@link java.lang.String} object, transfers in flight at the same time.
+     */
+    public AsyncEngineProperty(String enabled, String concurrency) {
+        this.enabled = enabled;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * <p>empty.</p>
+     *
+     * @return a {@link com.ehsaniara.s3.AsyncEngineProperty} object with the engine disabled.
+     */
+    public static AsyncEngineProperty empty() {
+        return new AsyncEngineProperty(null, null);
+    }
+
+    /**
+     * <p>isEnabled.</p>
+     *
+     * @return true if the asynchronous engine is enabled.
+     */
+    public boolean isEnabled() {
+        return Boolean.parseBoolean(value(enabled, ENABLED_PROP));
+    }
+
+    /**
+     * <p>getConcurrency.</p>
+     *
+     * @return the number of transfers in flight at the same time.
+     */
+    public int getConcurrency() {
+        String value = value(concurrency, CONCURRENCY_PROP);
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_CONCURRENCY;
+        }
+        return Math.max(1, Integer.parseInt(value.trim()));
+    }
+
+    private static String value(String configured, String systemProperty) {
+        if (configured != null) {
+            return configured;
+        }
+        return System.getProperty(systemProperty);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * <p>AsyncTransferEngine class.</p>
+ * <p>
+ * Runs the data transfers of a repository on an {@link software.amazon.awssdk.services.s3.S3AsyncClient}.
+ * Uploads and listings are non-blocking futures, so callers can keep many transfers in flight
+ * without a thread per transfer. Large uploads are split into parts by the SDK's multipart
+ * support. Downloads are handed out as streams, because the artifact checksums are calculated
+ * from the bytes reported while the caller writes them.
+ * <p>
+ * The SDK's {@code S3TransferManager} is not used. It ships as a separate artifact, and the multipart
+ * uploads it would add are already done by the client itself. Its progress listeners only report
+ * byte counts, while the wagon listeners and the checksum observers need the bytes that were sent.
+ * It also has no download to a stream, only to a file or through the same response transformers
+ * the client takes.
+ * <p>
+ * The client is leased from the {@link com.ehsaniara.s3.S3ClientRegistry} and shared with other
+ * repositories, so the engine never closes it, the owner of the lease releases it.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public class AsyncTransferEngine {
+
+    private final S3AsyncClient s3AsyncClient;
+    private final String bucket;
+
+    /**
+     * <p>Constructor for AsyncTransferEngine.</p>
+     *
+     * @param s3AsyncClient a {@link software.amazon.awssdk.services.s3.S3AsyncClient} object.
+     * @param bucket        a {@link java.lang.String} object.
+     */
+    public AsyncTransferEngine(S3AsyncClient s3AsyncClient, String bucket) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.bucket = bucket;
+    }
+
+    /**
+     * <p>upload.</p>
+     *
+     * @param key        a {@link java.lang.String} object.
+     * @param file       a {@link java.io.File} object.
+     * @param publicRead upload the object with public-read ACL.
+     * @param progress   a {@link com.ehsaniara.s3.Progress} object, called from the SDK's I/O threads.
+     * @return a {@link java.util.concurrent.CompletableFuture} completed once the object is stored.
+     */
+    public CompletableFuture<PutObjectResponse> upload(String key, File file, boolean publicRead, Progress progress) {
+        PutObjectRequest.Builder putRequest = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentLength(file.length());
+        if (publicRead) {
+            putRequest.acl(ObjectCannedACL.PUBLIC_READ);
+        }
+
+        return s3AsyncClient.putObject(putRequest.build(), new ProgressRequestBody(AsyncRequestBody.fromFile(file), progress));
+    }
+
+    /**
+     * <p>getObject.</p>
+     *
+     * @param getRequest a {@link software.amazon.awssdk.services.s3.model.GetObjectRequest} object.
+     * @return the response stream, available as soon as the response headers have arrived.
+     * @throws java.io.IOException if the thread was interrupted while waiting.
+     */
+    public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest getRequest) throws IOException {
+        return join(s3AsyncClient.getObject(getRequest, AsyncResponseTransformer.toBlockingInputStream()));
+    }
+
+    /**
+     * <p>listChildren.</p>
+     *
+     * @param prefix a {@link java.lang.String} object, empty or ending with {@code /}.
+     * @return a {@link java.util.concurrent.CompletableFuture} of the keys and common prefixes directly below the prefix.
+     */
+    public CompletableFuture<List<String>> listChildren(String prefix) {
+        ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .delimiter("/")
+                .build();
+
+        List<String> keys = Collections.synchronizedList(new ArrayList<>());
+        return s3AsyncClient.listObjectsV2Paginator(listRequest)
+                .subscribe(page -> {
+                    page.contents().forEach(s3Object -> keys.add(s3Object.key()));
+                    page.commonPrefixes().forEach(commonPrefix -> keys.add(commonPrefix.prefix()));
+                })
+                .thenApply(ignored -> keys);
+    }
+
+    /**
+     * Waits for a future and rethrows the SDK exception it failed with, so callers can handle the
+     * same exceptions as with the synchronous client.
+     *
+     * @param future a {@link java.util.concurrent.CompletableFuture} object.
+     * @param <T>    the result type.
+     * @return the result of the future.
+     * @throws java.io.IOException if the thread was interrupted or the future failed with an I/O error.
+     */
+    public static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for S3");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Reports the bytes of a request body as they are sent. A retry subscribes again from the
+     * start, only bytes beyond what an earlier attempt already reported are forwarded.
+     */
+    private static final class ProgressRequestBody implements AsyncRequestBody {
+
+        private final AsyncRequestBody body;
+        private final Progress progress;
+        private long reported;
+
+        ProgressRequestBody(AsyncRequestBody body, Progress progress) {
+            this.body = body;
+            this.progress = progress;
+        }
+
+        @Override
+        public Optional<Long> contentLength() {
+            return body.contentLength();
+        }
+
+        @Override
+        public String contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+            body.subscribe(new Subscriber<ByteBuffer>() {
+                private long position;
+
+                @Override
+                public void onSubscribe(Subscription subscription) {
+                    subscriber.onSubscribe(subscription);
+                }
+
+                @Override
+                public void onNext(ByteBuffer buffer) {
+                    report(buffer.duplicate());
+                    subscriber.onNext(buffer);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    subscriber.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    subscriber.onComplete();
+                }
+
+                private void report(ByteBuffer buffer) {
+                    int length = buffer.remaining();
+                    position += length;
+                    synchronized (progress) {
+                        if (position <= reported) {
+                            return;
+                        }
+                        int fresh = (int) Math.min(length, position - reported);
+                        int skipped = length - fresh;
+                        reported = position;
+                        if (buffer.hasArray()) {
+                            progress.progress(buffer.array(), buffer.arrayOffset() + buffer.position() + skipped, fresh);
+                        } else {
+                            byte[] bytes = new byte[fresh];
+                            buffer.position(buffer.position() + skipped);
+                            buffer.get(bytes);
+                            progress.progress(bytes, fresh);
+                        }
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>AtomicFileWriter class.</p>
+ * <p>
+ * Writes a download into a temporary file next to the destination and moves it into place once
+ * it is complete, so a failed transfer never leaves a truncated file where Maven expects an
+ * artifact. The content is copied in large chunks straight into a {@link java.nio.channels.FileChannel}
+ * and every chunk is reported from the buffer it was read into.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public final class AtomicFileWriter {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * <p>write.</p>
+     *
+     * @param inputStream a {@link java.io.InputStream} object, read to its end but not closed.
+     * @param destination a {@link java.io.File} object, replaced once the content is complete.
+     * @param progress    a {@link com.ehsaniara.s3.Progress} object.
+     * @return the number of bytes written.
+     * @throws java.io.IOException if any.
+     */
+    public static long write(InputStream inputStream, File destination, Progress progress) throws IOException {
+        Path target = destination.toPath().toAbsolutePath();
+        Path parent = target.getParent();
+        if (!Files.isDirectory(parent)) {
+            Files.createDirectories(parent);
+        }
+
+        Path temp = Files.createTempFile(parent, destination.getName() + ".", ".s3tmp");
+        try {
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int count;
+                while ((count = inputStream.read(buffer)) >= 0) {
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, count);
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk);
+                    }
+                    progress.progress(buffer, count);
+                    written += count;
+                }
+            }
+            moveIntoPlace(temp, target);
+            return written;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Replaces the target with the complete source file, atomically where the file system supports it.
+     *
+     * @param source a {@link java.nio.file.Path} object.
+     * @param target a {@link java.nio.file.Path} object.
+     * @throws java.io.IOException if any.
+     */
+    static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -19,15 +19,33 @@ package com.ehsaniara.s3;
 import lombok.extern.java.Log;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProviderChain;
+import software.amazon.awssdk.auth.credentials.ContainerCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.SystemPropertyCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.WebIdentityTokenFileCredentialsProvider;
+import software.amazon.awssdk.utils.IoUtils;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * <p>AwsCredentialsFactory class.</p>
+ * <p>
+ * The profile and default providers are shared by the whole JVM, so their chains are resolved
+ * once and the default provider refreshes expiring credentials in the background. Without the
+ * instance metadata (see {@link com.ehsaniara.s3.InstanceMetadataProperty}) the default chain
+ * leaves out the EC2 instance profile. Clients get {@link #forClient views} of the shared
+ * providers, a shared provider is closed and forgotten when the last client using it is closed.
  *
  * @author jay
  * @version $Id: $Id
@@ -35,6 +53,13 @@ import java.util.Objects;
 @Log
 public class AwsCredentialsFactory {
 
+    private static final String DEFAULT = "default";
+    private static final String DEFAULT_WITHOUT_INSTANCE_METADATA = "default-without-instance-metadata";
+
+    private static final Map<String, AwsCredentialsProvider> PROVIDERS = new ConcurrentHashMap<>();
+    // guarded by PROVIDERS
+    private static final Map<String, Integer> CLIENTS = new HashMap<>();
+
     /**
      * <p>connect.</p>
      *
@@ -51,9 +76,83 @@ public class AwsCredentialsFactory {
                             authenticationInfo.getPassword()));
         } else if (profile != null && !profile.isEmpty()) {
             log.fine(String.format("AWS Connection By ProfileCredentialsProvider using profile '%s'", profile));
-            return ProfileCredentialsProvider.create(profile);
+            return PROVIDERS.computeIfAbsent("profile:" + profile, key -> ProfileCredentialsProvider.create(profile));
+        } else if (InstanceMetadataProperty.empty().isEnabled()) {
+            return PROVIDERS.computeIfAbsent(DEFAULT, key -> DefaultCredentialsProvider.builder()
+                    .asyncCredentialUpdateEnabled(true)
+                    .build());
         } else {
-            return DefaultCredentialsProvider.builder().build();
+            log.fine("AWS Connection without the EC2 instance metadata credentials");
+            return PROVIDERS.computeIfAbsent(DEFAULT_WITHOUT_INSTANCE_METADATA, key -> AwsCredentialsProviderChain.builder()
+                    .reuseLastProviderEnabled(true)
+                    .credentialsProviders(
+                            SystemPropertyCredentialsProvider.create(),
+                            EnvironmentVariableCredentialsProvider.create(),
+                            WebIdentityTokenFileCredentialsProvider.create(),
+                            ProfileCredentialsProvider.create(),
+                            ContainerCredentialsProvider.builder().asyncCredentialUpdateEnabled(true).build())
+                    .build());
+        }
+    }
+
+    /**
+     * Connects a client, closing the client then leaves a shared provider open for the other
+     * clients using it and closes it with the last of them.
+     *
+     * @param authenticationInfo a {@link org.apache.maven.wagon.authentication.AuthenticationInfo} object.
+     * @param profile            an optional AWS named profile.
+     * @return a {@link software.amazon.awssdk.auth.credentials.AwsCredentialsProvider} object for one client.
+     */
+    static AwsCredentialsProvider forClient(AuthenticationInfo authenticationInfo, String profile) {
+        synchronized (PROVIDERS) {
+            AwsCredentialsProvider provider = new AwsCredentialsFactory().connect(authenticationInfo, profile);
+            for (Map.Entry<String, AwsCredentialsProvider> entry : PROVIDERS.entrySet()) {
+                if (entry.getValue() == provider) {
+                    CLIENTS.merge(entry.getKey(), 1, Integer::sum);
+                    return new ClientCredentialsProvider(entry.getKey(), provider);
+                }
+            }
+            return provider;
+        }
+    }
+
+    private static void release(String key, AwsCredentialsProvider provider) {
+        synchronized (PROVIDERS) {
+            if (CLIENTS.merge(key, -1, Integer::sum) > 0) {
+                return;
+            }
+            CLIENTS.remove(key);
+            PROVIDERS.remove(key, provider);
+        }
+        log.fine("Closing the credentials provider " + key + ", no client uses it anymore");
+        IoUtils.closeIfCloseable(provider, null);
+    }
+
+    private static final class ClientCredentialsProvider implements AwsCredentialsProvider, SdkAutoCloseable {
+        private final String key;
+        private final AwsCredentialsProvider delegate;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private ClientCredentialsProvider(String key, AwsCredentialsProvider delegate) {
+            this.key = key;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public AwsCredentials resolveCredentials() {
+            return delegate.resolveCredentials();
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(key, delegate);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
         }
     }
 }
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>BulkDownload class.</p>
+ * <p>
+ * Downloads many objects in a pipeline of three stages joined by bounded queues: the calling
+ * thread lists the keys, a pool of GET workers sends the requests and a pool of writers streams
+ * the response bodies to disk. A failing object does not stop the others, all failures are
+ * collected in the {@link com.ehsaniara.s3.BulkDownload.Result}. Interrupting the calling thread
+ * cancels the objects not yet written.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public class BulkDownload {
+
+    private static final String DIRECTORY_CONTENT_TYPE = "application/x-directory";
+    private static final String END_OF_KEYS = new String("end-of-keys");
+    private static final Response END_OF_RESPONSES = new Response(null, null);
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final Progress NO_PROGRESS = (buffer, length) -> {
+    };
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String downloadPath;
+    private final int downloadThreads;
+    private final int writerThreads;
+
+    @Setter
+    private Listener listener = (key, response, file) -> {
+    };
+
+    /**
+     * <p>Constructor for BulkDownload.</p>
+     *
+     * @param s3Client        a {@link software.amazon.awssdk.services.s3.S3Client} object.
+     * @param bucket          a {@link java.lang.String} object.
+     * @param downloadPath    a {@link java.lang.String} object, the directory the keys are resolved against.
+     * @param downloadThreads the number of GET requests in flight at the same time.
+     * @param writerThreads   the number of response bodies written to disk at the same time.
+     */
+    public BulkDownload(S3Client s3Client, String bucket, String downloadPath, int downloadThreads, int writerThreads) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.downloadPath = downloadPath;
+        this.downloadThreads = Math.max(1, downloadThreads);
+        this.writerThreads = Math.max(1, writerThreads);
+    }
+
+    /**
+     * <p>download.</p>
+     *
+     * @param keys a {@link java.util.Iterator} object, consumed on the calling thread.
+     * @return a {@link com.ehsaniara.s3.BulkDownload.Result} object.
+     * @throws java.lang.InterruptedException if the calling thread was interrupted.
+     */
+    public Result download(Iterator<String> keys) throws InterruptedException {
+        final long started = System.nanoTime();
+        final BlockingQueue<String> pendingKeys = new ArrayBlockingQueue<>(downloadThreads * 2);
+        // every queued response holds an open connection, so the queue is kept short
+        final BlockingQueue<Response> pendingResponses = new ArrayBlockingQueue<>(writerThreads);
+        final List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+        final AtomicLong objects = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicInteger activeGetWorkers = new AtomicInteger(downloadThreads);
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        ExecutorService getWorkers = Executors.newFixedThreadPool(downloadThreads, threadFactory("s3-bulk-get-"));
+        ExecutorService writers = Executors.newFixedThreadPool(writerThreads, threadFactory("s3-bulk-write-"));
+        int keyCount = 0;
+        try {
+            for (int i = 0; i < writerThreads; i++) {
+                writers.execute(() -> write(pendingResponses, failures, objects, bytes, cancelled));
+            }
+            for (int i = 0; i < downloadThreads; i++) {
+                getWorkers.execute(() -> {
+                    try {
+                        get(pendingKeys, pendingResponses, failures, cancelled);
+                    } finally {
+                        if (activeGetWorkers.decrementAndGet() == 0) {
+                            for (int w = 0; w < writerThreads; w++) {
+                                putUninterruptibly(pendingResponses, END_OF_RESPONSES);
+                            }
+                        }
+                    }
+                });
+            }
+
+            try {
+                while (keys.hasNext()) {
+                    pendingKeys.put(keys.next());
+                    keyCount++;
+                }
+            } catch (InterruptedException e) {
+                // the workers skip the keys and abort the responses still queued
+                cancelled.set(true);
+                throw e;
+            } catch (RuntimeException e) {
+                failures.add(new IOException("Could not list the keys to download", e));
+            } finally {
+                for (int i = 0; i < downloadThreads; i++) {
+                    putUninterruptibly(pendingKeys, END_OF_KEYS);
+                }
+            }
+
+            getWorkers.shutdown();
+            writers.shutdown();
+            getWorkers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            writers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            getWorkers.shutdownNow();
+            writers.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            getWorkers.shutdown();
+            writers.shutdown();
+        }
+
+        return new Result(keyCount, objects.get(), bytes.get(), System.nanoTime() - started, new ArrayList<>(failures));
+    }
+
+    private void get(BlockingQueue<String> pendingKeys, BlockingQueue<Response> pendingResponses, List<Exception> failures, AtomicBoolean cancelled) {
+        while (true) {
+            final String key = takeUninterruptibly(pendingKeys);
+            if (key == END_OF_KEYS) {
+                return;
+            }
+            if (cancelled.get()) {
+                continue;
+            }
+            try {
+                ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(GetObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .build());
+                if (DIRECTORY_CONTENT_TYPE.equals(s3Object.response().contentType())) {
+                    s3Object.abort();
+                    continue;
+                }
+                putUninterruptibly(pendingResponses, new Response(key, s3Object));
+            } catch (RuntimeException e) {
+                failures.add(new IOException("Could not download " + key, e));
+            }
+        }
+    }
+
+    private void write(BlockingQueue<Response> pendingResponses, List<Exception> failures, AtomicLong objects, AtomicLong bytes, AtomicBoolean cancelled) {
+        while (true) {
+            final Response response = takeUninterruptibly(pendingResponses);
+            if (response == END_OF_RESPONSES) {
+                return;
+            }
+            if (cancelled.get()) {
+                response.s3Object.abort();
+                continue;
+            }
+            File file = new File(downloadPath + "/" + response.key);
+            try (ResponseInputStream<GetObjectResponse> s3Object = response.s3Object) {
+                long written = AtomicFileWriter.write(s3Object, file, NO_PROGRESS);
+                listener.written(response.key, s3Object.response(), file);
+                objects.incrementAndGet();
+                bytes.addAndGet(written);
+            } catch (IOException | RuntimeException e) {
+                response.s3Object.abort();
+                failures.add(new IOException("Could not write " + response.key + " to " + file, e));
+            }
+        }
+    }
+
+    private static <T> T takeUninterruptibly(BlockingQueue<T> queue) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static <T> void putUninterruptibly(BlockingQueue<T> queue, T element) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    queue.put(element);
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        return r -> {
+            Thread thread = new Thread(r, prefix + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Notified from the writer threads once an object has been moved into place.
+     */
+    public interface Listener {
+
+        /**
+         * <p>written.</p>
+         *
+         * @param key      a {@link java.lang.String} object.
+         * @param response a {@link software.amazon.awssdk.services.s3.model.GetObjectResponse} object.
+         * @param file     a {@link java.io.File} object, the downloaded file.
+         */
+        void written(String key, GetObjectResponse response, File file);
+    }
+
+    private static final class Response {
+        private final String key;
+        private final ResponseInputStream<GetObjectResponse> s3Object;
+
+        private Response(String key, ResponseInputStream<GetObjectResponse> s3Object) {
+            this.key = key;
+            this.s3Object = s3Object;
+        }
+    }
+
+    /**
+     * The outcome of a bulk download.
+     */
+    @Getter
+    public static final class Result {
+
+        private final int keys;
+        private final long objects;
+        private final long bytes;
+        private final long elapsedNanos;
+        private final List<Exception> failures;
+
+        private Result(int keys, long objects, long bytes, long elapsedNanos, List<Exception> failures) {
+            this.keys = keys;
+            this.objects = objects;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+            this.failures = failures;
+        }
+
+        /**
+         * <p>getMegabytesPerSecond.</p>
+         *
+         * @return the average throughput.
+         */
+        public double getMegabytesPerSecond() {
+            double seconds = Math.max(elapsedNanos, 1) / 1e9;
+            return bytes / (double) ByteSize.MB / seconds;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import java.util.Locale;
+
+/**
+ * Parses human readable byte sizes such as {@code 8388608}, {@code 512KB}, {@code 16MB} or {@code 2G}.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public final class ByteSize {
+
+    /** Constant <code>KB=1024L</code> */
+    public static final long KB = 1024L;
+    /** Constant <code>MB=1024L * KB</code> */
+    public static final long MB = 1024L * KB;
+    /** Constant <code>GB=1024L * MB</code> */
+    public static final long GB = 1024L * MB;
+
+    private ByteSize() {
+    }
+
+    /**
+     * <p>parse.</p>
+     *
+     * @param value        a {@link java.lang.String} object, may be null or empty.
+     * @param defaultValue returned when value is null or empty.
+     * @return the size in bytes.
+     * @throws java.lang.IllegalArgumentException if the value is not a valid size.
+     */
+    public static long parse(String value, long defaultValue) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        String normalized = value.trim().toUpperCase(Locale.ROOT);
+        if (normalized.endsWith("B")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+
+        long multiplier = 1;
+        if (normalized.endsWith("K")) {
+            multiplier = KB;
+        } else if (normalized.endsWith("M")) {
+            multiplier = MB;
+        } else if (normalized.endsWith("G")) {
+            multiplier = GB;
+        }
+        if (multiplier != 1) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+
+        try {
+            return Long.parseLong(normalized.trim()) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid size: " + value, e);
+        }
+    }
+}
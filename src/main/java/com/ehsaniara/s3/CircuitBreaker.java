@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>CircuitBreaker class.</p>
+ * <p>
+ * Fails the requests of a client right away once {@code threshold} requests in a row failed
+ * because the endpoint could not be reached or answered with a server error, after the SDK's own
+ * retries. Once the cooldown has passed a single request is let through to probe the endpoint, it
+ * closes the circuit again if it succeeds. Client errors such as a missing key show that the
+ * endpoint is up and count as success. Throttling errors, cancelled and interrupted requests and
+ * requests marked with {@link #UNCOUNTED} count neither way.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public final class CircuitBreaker implements ExecutionInterceptor {
+
+    /**
+     * Marks a request whose outcome says nothing about the endpoint, such as a warm-up request.
+     */
+    public static final ExecutionAttribute<Boolean> UNCOUNTED = new ExecutionAttribute<>("S3CircuitBreakerUncounted");
+
+    private static final ExecutionAttribute<Boolean> REJECTED = new ExecutionAttribute<>("S3CircuitBreakerRejected");
+
+    private final int threshold;
+    private final long cooldownNanos;
+    private final LongSupplier clock;
+
+    private int failures;
+    private boolean open;
+    private long openUntil;
+    private boolean probing;
+
+    /**
+     * <p>Constructor for CircuitBreaker.</p>
+     *
+     * @param threshold the number of failed requests in a row that open the circuit.
+     * @param cooldown  a {@link java.time.Duration} object, the time the circuit stays open.
+     */
+    public CircuitBreaker(int threshold, Duration cooldown) {
+        this(threshold, cooldown, System::nanoTime);
+    }
+
+    CircuitBreaker(int threshold, Duration cooldown, LongSupplier clock) {
+        this.threshold = threshold;
+        this.cooldownNanos = cooldown.toNanos();
+        this.clock = clock;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        if (Boolean.TRUE.equals(executionAttributes.getAttribute(UNCOUNTED))) {
+            return;
+        }
+        if (!allow()) {
+            executionAttributes.putAttribute(REJECTED, Boolean.TRUE);
+            throw SdkClientException.create("The S3 endpoint failed " + threshold + " requests in a row, failing fast until it recovers");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        if (!Boolean.TRUE.equals(executionAttributes.getAttribute(UNCOUNTED))) {
+            succeeded();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        if (Boolean.TRUE.equals(executionAttributes.getAttribute(REJECTED))
+                || Boolean.TRUE.equals(executionAttributes.getAttribute(UNCOUNTED))) {
+            return;
+        }
+        if (Thread.currentThread().isInterrupted() || isIgnored(context.exception())) {
+            ignored();
+        } else if (isUnavailable(context.exception())) {
+            failed();
+        } else {
+            succeeded();
+        }
+    }
+
+    synchronized boolean allow() {
+        if (!open) {
+            return true;
+        }
+        if (probing || clock.getAsLong() - openUntil < 0) {
+            return false;
+        }
+        probing = true;
+        return true;
+    }
+
+    synchronized void succeeded() {
+        if (open) {
+            log.info("S3 endpoint recovered, closing the circuit");
+        }
+        failures = 0;
+        open = false;
+        probing = false;
+    }
+
+    // lets another probe through if the probe ended without telling whether the endpoint is up
+    synchronized void ignored() {
+        probing = false;
+    }
+
+    synchronized void failed() {
+        probing = false;
+        if (open || ++failures >= threshold) {
+            if (!open) {
+                log.warning(String.format("%d S3 requests in a row failed, failing fast for %d seconds", failures, Duration.ofNanos(cooldownNanos).getSeconds()));
+            }
+            open = true;
+            openUntil = clock.getAsLong() + cooldownNanos;
+        }
+    }
+
+    static boolean isIgnored(Throwable e) {
+        if (e instanceof SdkServiceException) {
+            return ((SdkServiceException) e).isThrottlingException();
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AbortedException || cause instanceof InterruptedException
+                    || cause instanceof ClosedByInterruptException
+                    || (cause instanceof InterruptedIOException && !(cause instanceof SocketTimeoutException))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isUnavailable(Throwable e) {
+        if (e instanceof SdkServiceException) {
+            return ((SdkServiceException) e).statusCode() >= 500;
+        }
+        if (e instanceof ApiCallTimeoutException || e instanceof ApiCallAttemptTimeoutException) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
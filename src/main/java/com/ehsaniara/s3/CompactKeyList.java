@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * <p>CompactKeyList class.</p>
+ * <p>
+ * An immutable list of keys stored front coded: every key only keeps the bytes that differ from
+ * the key before it, so the long path segments Maven keys share are stored once per run instead
+ * of once per key. Keys in listing order compress best. Every {@value #BLOCK_SIZE}th key is
+ * stored in full, so a random access decodes at most one block, and iterating decodes every key
+ * exactly once.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public final class CompactKeyList extends AbstractList<String> implements RandomAccess {
+
+    private static final int BLOCK_SIZE = 16;
+    private static final CompactKeyList EMPTY = new Builder().build();
+
+    private final byte[] data;
+    private final int[] blocks;
+    private final int size;
+
+    private CompactKeyList(byte[] data, int[] blocks, int size) {
+        this.data = data;
+        this.blocks = blocks;
+        this.size = size;
+    }
+
+    /**
+     * <p>copyOf.</p>
+     *
+     * @param keys a {@link java.util.Collection} object.
+     * @return a {@link com.ehsaniara.s3.CompactKeyList} object, the given one if it already is compact.
+     */
+    public static CompactKeyList copyOf(Collection<String> keys) {
+        if (keys instanceof CompactKeyList) {
+            return (CompactKeyList) keys;
+        }
+        Builder builder = new Builder();
+        keys.forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * <p>empty.</p>
+     *
+     * @return an empty {@link com.ehsaniara.s3.CompactKeyList} object.
+     */
+    public static CompactKeyList empty() {
+        return EMPTY;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Decoder decoder = new Decoder(blocks[index / BLOCK_SIZE]);
+        String key = null;
+        for (int i = index - index % BLOCK_SIZE; i <= index; i++) {
+            key = decoder.next();
+        }
+        return key;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private final Decoder decoder = new Decoder(0);
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                index++;
+                return decoder.next();
+            }
+        };
+    }
+
+    /**
+     * Reads the entries sequentially, starting with a key stored in full.
+     */
+    private final class Decoder {
+        private int position;
+        private byte[] key = new byte[64];
+
+        private Decoder(int position) {
+            this.position = position;
+        }
+
+        private String next() {
+            int shared = readVarInt();
+            int suffix = readVarInt();
+            if (shared + suffix > key.length) {
+                key = Arrays.copyOf(key, Math.max(key.length * 2, shared + suffix));
+            }
+            System.arraycopy(data, position, key, shared, suffix);
+            position += suffix;
+            return new String(key, 0, shared + suffix, StandardCharsets.UTF_8);
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    /**
+     * Collects keys into a {@link com.ehsaniara.s3.CompactKeyList}. Not thread safe.
+     */
+    public static final class Builder {
+        private byte[] data = new byte[1024];
+        private int[] blocks = new int[16];
+        private int position;
+        private int size;
+        private byte[] previous = new byte[0];
+
+        /**
+         * <p>add.</p>
+         *
+         * @param key a {@link java.lang.String} object.
+         * @return this builder.
+         */
+        public Builder add(String key) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            int shared = 0;
+            if (size % BLOCK_SIZE == 0) {
+                if (size / BLOCK_SIZE == blocks.length) {
+                    blocks = Arrays.copyOf(blocks, blocks.length * 2);
+                }
+                blocks[size / BLOCK_SIZE] = position;
+            } else {
+                int max = Math.min(bytes.length, previous.length);
+                while (shared < max && bytes[shared] == previous[shared]) {
+                    shared++;
+                }
+            }
+
+            ensureCapacity(10 + bytes.length - shared);
+            writeVarInt(shared);
+            writeVarInt(bytes.length - shared);
+            System.arraycopy(bytes, shared, data, position, bytes.length - shared);
+            position += bytes.length - shared;
+            previous = bytes;
+            size++;
+            return this;
+        }
+
+        /**
+         * <p>build.</p>
+         *
+         * @return a {@link com.ehsaniara.s3.CompactKeyList} object.
+         */
+        public CompactKeyList build() {
+            int blockCount = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            return new CompactKeyList(Arrays.copyOf(data, position), Arrays.copyOf(blocks, blockCount), size);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (position + additional > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, position + additional));
+            }
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                data[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[position++] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * <p>ConnectionWarmer class.</p>
+ * <p>
+ * Opens pooled connections of a new client in the background with concurrent HEAD bucket
+ * requests, so the first transfers of a build do not pay the DNS lookup and the TCP and TLS
+ * handshakes. Every request holds its own connection while it runs, the requests are released
+ * together so they overlap. Failed requests are only logged and do not count towards the
+ * {@link CircuitBreaker}, the connection is usually established even when the bucket answers
+ * with an error.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public final class ConnectionWarmer {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "s3-warm-up-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ConnectionWarmer() {
+    }
+
+    /**
+     * Starts opening the connections and returns right away.
+     *
+     * @param s3Client    a {@link software.amazon.awssdk.services.s3.S3Client} object.
+     * @param bucket      a {@link java.lang.String} object.
+     * @param connections the number of connections to open.
+     * @return a {@link java.util.concurrent.CountDownLatch} object, counted down as the requests complete.
+     */
+    public static CountDownLatch warmUp(S3Client s3Client, String bucket, int connections) {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(connections);
+        final HeadBucketRequest request = HeadBucketRequest.builder()
+                .bucket(bucket)
+                .overrideConfiguration(configuration -> configuration.putExecutionAttribute(CircuitBreaker.UNCOUNTED, Boolean.TRUE))
+                .build();
+
+        log.fine(String.format("Opening %d connections to bucket %s", connections, bucket));
+        for (int i = 0; i < connections; i++) {
+            EXECUTOR.execute(() -> {
+                try {
+                    start.await();
+                    s3Client.headBucket(request);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    log.log(Level.FINE, "Warm-up request to bucket " + bucket + " failed", e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        return done;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>ETagRegistry class.</p>
+ * <p>
+ * Remembers the ETag of every object downloaded into a local file, so a later
+ * {@code getIfNewer} can revalidate it with {@code If-None-Match}. An entry is only used while the
+ * local file still has the size and modification time it had right after the download. An object
+ * streamed to the caller has no local file, its entry is only used while the caller's copy is not
+ * older than the version that was streamed.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class ETagRegistry {
+
+    private final Map<String, Tag> entries;
+
+    /**
+     * <p>Constructor for ETagRegistry.</p>
+     *
+     * @param maxEntries the number of resources remembered, least recently used ones are dropped first.
+     */
+    public ETagRegistry(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, Tag>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Tag> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * <p>remember.</p>
+     *
+     * @param bucket a {@link java.lang.String} object.
+     * @param key    a {@link java.lang.String} object.
+     * @param eTag   a {@link java.lang.String} object, ignored if null.
+     * @param file   the local file the object was written to.
+     */
+    public void remember(String bucket, String key, String eTag, File file) {
+        if (eTag == null) {
+            return;
+        }
+        Tag tag = new Tag(eTag, file.getAbsolutePath(), file.length(), file.lastModified());
+        synchronized (entries) {
+            entries.put(bucket + '/' + key, tag);
+        }
+    }
+
+    /**
+     * <p>remember.</p>
+     *
+     * @param bucket       a {@link java.lang.String} object.
+     * @param key          a {@link java.lang.String} object.
+     * @param eTag         a {@link java.lang.String} object, ignored if null.
+     * @param lastModified the last modification time S3 reported for the streamed object, ignored if null.
+     */
+    public void remember(String bucket, String key, String eTag, Instant lastModified) {
+        if (eTag == null || lastModified == null) {
+            return;
+        }
+        Tag tag = new Tag(eTag, null, -1, lastModified.toEpochMilli());
+        synchronized (entries) {
+            entries.put(bucket + '/' + key, tag);
+        }
+    }
+
+    /**
+     * <p>lookup.</p>
+     *
+     * @param bucket a {@link java.lang.String} object.
+     * @param key    a {@link java.lang.String} object.
+     * @param file   the local copy to revalidate.
+     * @return the ETag of the local copy, or null if unknown or the file changed since.
+     */
+    public String lookup(String bucket, String key, File file) {
+        Tag tag;
+        synchronized (entries) {
+            tag = entries.get(bucket + '/' + key);
+        }
+        if (tag == null
+                || !file.getAbsolutePath().equals(tag.path)
+                || tag.length != file.length()
+                || tag.lastModified != file.lastModified()) {
+            return null;
+        }
+        return tag.eTag;
+    }
+
+    /**
+     * <p>lookup.</p>
+     *
+     * @param bucket    a {@link java.lang.String} object.
+     * @param key       a {@link java.lang.String} object.
+     * @param timeStamp the last modification time of the caller's copy, 0 if it has none.
+     * @return the ETag of the streamed object, or null if unknown or the caller's copy is older.
+     */
+    public String lookup(String bucket, String key, long timeStamp) {
+        Tag tag;
+        synchronized (entries) {
+            tag = entries.get(bucket + '/' + key);
+        }
+        if (tag == null || tag.path != null || timeStamp <= 0 || timeStamp < tag.lastModified) {
+            return null;
+        }
+        return tag.eTag;
+    }
+
+    private static final class Tag {
+        private final String eTag;
+        private final String path;
+        private final long length;
+        private final long lastModified;
+
+        private Tag(String eTag, String path, long length, long lastModified) {
+            this.eTag = eTag;
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.ContentStreamProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+
+/**
+ * <p>FileContentProvider class.</p>
+ * <p>
+ * The content of a file range as request body. Every attempt of the request opens a fresh stream
+ * that reads the range from disk with positional {@link java.nio.channels.FileChannel} reads, so
+ * the SDK never buffers the content for retries or signing. Bytes sent again by a retry are not
+ * reported again, the progress never exceeds the length of the range.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public final class FileContentProvider implements ContentStreamProvider, AutoCloseable {
+
+    private static final String CONTENT_TYPE = "application/octet-stream";
+
+    private final File file;
+    private final long offset;
+    private final long length;
+    private final Progress progress;
+    private long reported;
+    private InputStream current;
+
+    /**
+     * <p>Constructor for FileContentProvider.</p>
+     *
+     * @param file     a {@link java.io.File} object.
+     * @param offset   the position of the range in the file.
+     * @param length   the length of the range.
+     * @param progress a {@link com.ehsaniara.s3.Progress} object.
+     */
+    public FileContentProvider(File file, long offset, long length, Progress progress) {
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.progress = progress;
+    }
+
+    /**
+     * <p>requestBody.</p>
+     *
+     * @return a {@link software.amazon.awssdk.core.sync.RequestBody} object over this content.
+     */
+    public RequestBody requestBody() {
+        return RequestBody.fromContentProvider(this, length, CONTENT_TYPE);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public InputStream newStream() {
+        close();
+        try {
+            current = new RangeInputStream(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+            return current;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.log(Level.FINE, "Could not close " + file, e);
+            }
+            current = null;
+        }
+    }
+
+    private void sent(byte[] buffer, int off, long end, int count) {
+        if (end <= reported) {
+            return;
+        }
+        // only the tail of the chunk is new if an earlier attempt got further into it
+        int fresh = (int) Math.min(count, end - reported);
+        int start = off + count - fresh;
+        reported = end;
+        progress.progress(buffer, start, fresh);
+    }
+
+    private final class RangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final byte[] single = new byte[1];
+        private long position;
+
+        private RangeInputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int count = read(single, 0, 1);
+            return count < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= length) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, length - position)), offset + position);
+            if (count < 0) {
+                throw new IOException(String.format("%s ended after %d of %d bytes", file, position, length));
+            }
+            position += count;
+            sent(b, off, position, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, length - position);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
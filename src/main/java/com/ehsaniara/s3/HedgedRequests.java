@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * <p>HedgedRequests class.</p>
+ * <p>
+ * Sends a request a second time if it has not been answered after the configured percentile of
+ * the recent latencies, and takes whichever answer arrives first. An answer is a response or an
+ * error response of S3, connection failures of one attempt leave the other one running. The
+ * slower attempt is interrupted, and a response it still receives is discarded. Every request
+ * earns a fraction of a hedge, so hedges never exceed the budget share of the requests plus a
+ * small burst. Nothing is hedged until enough latencies have been recorded.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public final class HedgedRequests {
+
+    private static final int SAMPLES = 256;
+    private static final int MIN_SAMPLES = 20;
+    private static final double MAX_TOKENS = 10;
+
+    // shared by all wagon instances, Maven looks up a new wagon for every repository access
+    private static final Map<String, HedgedRequests> SHARED = new ConcurrentHashMap<>();
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "s3-hedge-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double budget;
+
+    private final long[] latencies = new long[SAMPLES];
+    private int samples;
+    private int next;
+    private double tokens;
+
+    HedgedRequests(HedgingProperty property) {
+        this.percentile = property.getPercentile();
+        this.minDelayNanos = property.getMinDelay().toNanos();
+        this.budget = property.getBudget();
+    }
+
+    /**
+     * <p>shared.</p>
+     *
+     * @param name     a {@link java.lang.String} object, e.g. the bucket and the kind of request.
+     * @param property a {@link com.ehsaniara.s3.HedgingProperty} object.
+     * @return the {@link com.ehsaniara.s3.HedgedRequests} object of that name, whose latencies are shared JVM wide.
+     */
+    public static HedgedRequests shared(String name, HedgingProperty property) {
+        return SHARED.computeIfAbsent(name + '|' + property.key(), key -> new HedgedRequests(property));
+    }
+
+    /**
+     * <p>call.</p>
+     *
+     * @param request a {@link java.util.function.Supplier} object sending the request, it may be called twice.
+     * @param discard a {@link java.util.function.Consumer} object releasing a response that lost the race.
+     * @param <T>     the type of the response.
+     * @return the first response.
+     */
+    public <T> T call(Supplier<T> request, Consumer<T> discard) {
+        final long delay = delayNanos();
+        final long start = System.nanoTime();
+
+        if (delay < 0) {
+            try {
+                T result = request.get();
+                record(System.nanoTime() - start);
+                return result;
+            } catch (SdkServiceException e) {
+                record(System.nanoTime() - start);
+                throw e;
+            }
+        }
+
+        final AtomicBoolean answered = new AtomicBoolean();
+        final CompletionService<T> completion = new ExecutorCompletionService<>(EXECUTOR);
+        final List<Future<T>> attempts = new ArrayList<>(2);
+        attempts.add(completion.submit(() -> attempt(request, discard, answered)));
+        RuntimeException failure = null;
+        try {
+            Future<T> done = completion.poll(delay, TimeUnit.NANOSECONDS);
+            if (done == null && acquireToken()) {
+                log.finer("Hedging a request that was not answered in time");
+                attempts.add(completion.submit(() -> attempt(request, discard, answered)));
+            }
+            for (int pending = attempts.size(); pending > 0; pending--) {
+                if (done == null) {
+                    done = completion.take();
+                }
+                try {
+                    T result = done.get();
+                    record(System.nanoTime() - start);
+                    return result;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof SdkServiceException) {
+                        record(System.nanoTime() - start);
+                        throw (SdkServiceException) cause;
+                    }
+                    if (!(cause instanceof LostRace)) {
+                        RuntimeException attemptFailure = cause instanceof RuntimeException
+                                ? (RuntimeException) cause
+                                : SdkClientException.create(String.valueOf(cause.getMessage()), cause);
+                        if (failure == null) {
+                            failure = attemptFailure;
+                        } else {
+                            failure.addSuppressed(attemptFailure);
+                        }
+                    }
+                }
+                done = null;
+            }
+            throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw SdkClientException.create("Interrupted while waiting for S3", e);
+        } finally {
+            for (Future<T> attempt : attempts) {
+                attempt.cancel(true);
+            }
+        }
+    }
+
+    private static <T> T attempt(Supplier<T> request, Consumer<T> discard, AtomicBoolean answered) {
+        T result;
+        try {
+            result = request.get();
+        } catch (SdkServiceException e) {
+            if (answered.compareAndSet(false, true)) {
+                throw e;
+            }
+            throw new LostRace();
+        }
+        if (answered.compareAndSet(false, true)) {
+            return result;
+        }
+        discard.accept(result);
+        throw new LostRace();
+    }
+
+    // every request earns its share of a hedge, returns -1 while too few latencies are known
+    private synchronized long delayNanos() {
+        tokens = Math.min(MAX_TOKENS, tokens + budget);
+        if (samples < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+    }
+
+    private synchronized boolean acquireToken() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    private synchronized void record(long latency) {
+        latencies[next] = latency;
+        next = (next + 1) % SAMPLES;
+        samples = Math.min(SAMPLES, samples + 1);
+    }
+
+    private static final class LostRace extends RuntimeException {
+        private LostRace() {
+            super("Another attempt was answered first", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import java.time.Duration;
+
+/**
+ * <p>HedgingProperty class.</p>
+ * <p>
+ * Hedged GET and HEAD requests are off unless enabled in the wagon configuration or as a system
+ * property. A request that has not been answered after the given percentile of the recent
+ * latencies, but at least the minimum delay, is sent a second time. The budget is the share of
+ * requests, in percent, that may be hedged.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class HedgingProperty {
+
+    private static final String ENABLED_PROP = "S3_HEDGE_REQUESTS";
+    private static final String PERCENTILE_PROP = "S3_HEDGE_PERCENTILE";
+    private static final String MIN_DELAY_PROP = "S3_HEDGE_MIN_DELAY";
+    private static final String BUDGET_PROP = "S3_HEDGE_BUDGET";
+
+    static final double DEFAULT_PERCENTILE = 95;
+    static final long DEFAULT_MIN_DELAY_MILLIS = 50;
+    static final double DEFAULT_BUDGET = 5;
+
+    private final String enabled;
+    private final String percentile;
+    private final String minDelay;
+    private final String budget;
+
+    /**
+     * <p>Constructor for HedgingProperty.</p>
+     *
+     * @param enabled    a {@link java.lang.String} object, {@code true} to hedge requests.
+     * @param percentile a {@link java.lang.String} object, the latency percentile after which a request is hedged.
+     * @param minDelay   a {@link java.lang.String} object, milliseconds a request is waited for at least.
+     * @param budget     a {@link java.lang.String} object, percent of the requests that may be hedged.
+     */
+    public HedgingProperty(String enabled, String percentile, String minDelay, String budget) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.budget = budget;
+    }
+
+    /**
+     * <p>empty.</p>
+     *
+     * @return a {@link com.ehsaniara.s3.HedgingProperty} object with the system properties or the defaults.
+     */
+    public static HedgingProperty empty() {
+        return new HedgingProperty(null, null, null, null);
+    }
+
+    /**
+     * <p>isEnabled.</p>
+     *
+     * @return true if requests are hedged.
+     */
+    public boolean isEnabled() {
+        return Boolean.parseBoolean(value(enabled, ENABLED_PROP));
+    }
+
+    /**
+     * <p>getPercentile.</p>
+     *
+     * @return the latency percentile after which a request is hedged, between 1 and 100.
+     */
+    public double getPercentile() {
+        String value = value(percentile, PERCENTILE_PROP);
+        return value == null ? DEFAULT_PERCENTILE : Math.min(100, Math.max(1, Double.parseDouble(value)));
+    }
+
+    /**
+     * <p>getMinDelay.</p>
+     *
+     * @return a {@link java.time.Duration} object, the time a request is waited for at least.
+     */
+    public Duration getMinDelay() {
+        String value = value(minDelay, MIN_DELAY_PROP);
+        return Duration.ofMillis(value == null ? DEFAULT_MIN_DELAY_MILLIS : Math.max(0, Long.parseLong(value)));
+    }
+
+    /**
+     * <p>getBudget.</p>
+     *
+     * @return the share of requests that may be hedged, between 0 and 1.
+     */
+    public double getBudget() {
+        String value = value(budget, BUDGET_PROP);
+        return (value == null ? DEFAULT_BUDGET : Math.min(100, Math.max(0, Double.parseDouble(value)))) / 100;
+    }
+
+    /**
+     * <p>key.</p>
+     *
+     * @return a {@link java.lang.String} object identifying the effective settings.
+     */
+    public String key() {
+        return getPercentile() + "," + getMinDelay() + "," + getBudget();
+    }
+
+    private static String value(String configured, String systemProperty) {
+        String value = configured != null ? configured : System.getProperty(systemProperty);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+}
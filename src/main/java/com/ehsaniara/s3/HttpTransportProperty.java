@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import java.time.Duration;
+
+/**
+ * <p>HttpTransportProperty class.</p>
+ * <p>
+ * Tuning of the Apache HTTP client used by the S3 client. Every setting is optional, unset
+ * settings keep the SDK defaults.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class HttpTransportProperty {
+
+    private static final String MAX_CONNECTIONS_PROP = "S3_HTTP_MAX_CONNECTIONS";
+    private static final String CONNECTION_TTL_PROP = "S3_HTTP_CONNECTION_TTL";
+    private static final String CONNECTION_MAX_IDLE_TIME_PROP = "S3_HTTP_CONNECTION_MAX_IDLE_TIME";
+    private static final String TCP_KEEP_ALIVE_PROP = "S3_HTTP_TCP_KEEP_ALIVE";
+    private static final String SOCKET_SEND_BUFFER_SIZE_PROP = "S3_HTTP_SOCKET_SEND_BUFFER_SIZE";
+    private static final String SOCKET_RECEIVE_BUFFER_SIZE_PROP = "S3_HTTP_SOCKET_RECEIVE_BUFFER_SIZE";
+    private static final String EXPECT_CONTINUE_PROP = "S3_HTTP_EXPECT_CONTINUE";
+    private static final String CONNECTION_ACQUISITION_TIMEOUT_PROP = "S3_HTTP_CONNECTION_ACQUISITION_TIMEOUT";
+
+    private final String maxConnections;
+    private final String connectionTtl;
+    private final String connectionMaxIdleTime;
+    private final String tcpKeepAlive;
+    private final String socketSendBufferSize;
+    private final String socketReceiveBufferSize;
+    private final String expectContinue;
+    private final String connectionAcquisitionTimeout;
+
+    /**
+     * <p>Constructor for HttpTransportProperty.</p>
+     *
+     * @param maxConnections               a {@link java.lang.String} object, the size of the connection pool.
+     * @param connectionTtl                a {@link java.lang.String} object, seconds a pooled connection is used at most.
+     * @param connectionMaxIdleTime        a {@link java.lang.String} object, seconds after which idle connections are reaped.
+     * @param tcpKeepAlive                 a {@link java.lang.String} object, {@code true} to enable TCP keep-alive.
+     * @param socketSendBufferSize         a {@link java.lang.String} object, e.g. {@code 1MB}.
+     * @param socketReceiveBufferSize      a {@link java.lang.String} object, e.g. {@code 1MB}.
+     * @param expectContinue               a {@link java.lang.String} object, {@code false} to disable {@code Expect: 100-continue}.
+     * @param connectionAcquisitionTimeout a {@link java.lang.String} object, seconds to wait for a pooled connection.
+     */
+    public HttpTransportProperty(String maxConnections, String connectionTtl, String connectionMaxIdleTime, String tcpKeepAlive,
+                                 String socketSendBufferSize, String socketReceiveBufferSize, String expectContinue,
+                                 String connectionAcquisitionTimeout) {
+        this.maxConnections = maxConnections;
+        this.connectionTtl = connectionTtl;
+        this.connectionMaxIdleTime = connectionMaxIdleTime;
+        this.tcpKeepAlive = tcpKeepAlive;
+        this.socketSendBufferSize = socketSendBufferSize;
+        this.socketReceiveBufferSize = socketReceiveBufferSize;
+        this.expectContinue = expectContinue;
+        this.connectionAcquisitionTimeout = connectionAcquisitionTimeout;
+    }
+
+    /**
+     * <p>empty.</p>
+     *
+     * @return a {@link com.ehsaniara.s3.HttpTransportProperty} object that only reads the system properties.
+     */
+    public static HttpTransportProperty empty() {
+        return new HttpTransportProperty(null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * <p>getMaxConnections.</p>
+     *
+     * @return a {@link java.lang.Integer} object, null if not set.
+     */
+    public Integer getMaxConnections() {
+        String value = value(maxConnections, MAX_CONNECTIONS_PROP);
+        return value == null ? null : Math.max(1, Integer.parseInt(value));
+    }
+
+    /**
+     * <p>getConnectionTtl.</p>
+     *
+     * @return a {@link java.time.Duration} object, null if not set.
+     */
+    public Duration getConnectionTtl() {
+        return seconds(value(connectionTtl, CONNECTION_TTL_PROP));
+    }
+
+    /**
+     * <p>getConnectionMaxIdleTime.</p>
+     *
+     * @return a {@link java.time.Duration} object, null if not set.
+     */
+    public Duration getConnectionMaxIdleTime() {
+        return seconds(value(connectionMaxIdleTime, CONNECTION_MAX_IDLE_TIME_PROP));
+    }
+
+    /**
+     * <p>getTcpKeepAlive.</p>
+     *
+     * @return a {@link java.lang.Boolean} object, null if not set.
+     */
+    public Boolean getTcpKeepAlive() {
+        String value = value(tcpKeepAlive, TCP_KEEP_ALIVE_PROP);
+        return value == null ? null : Boolean.valueOf(value);
+    }
+
+    /**
+     * <p>getSocketSendBufferSize.</p>
+     *
+     * @return the socket send buffer size in bytes, 0 if not set.
+     */
+    public int getSocketSendBufferSize() {
+        return (int) ByteSize.parse(value(socketSendBufferSize, SOCKET_SEND_BUFFER_SIZE_PROP), 0);
+    }
+
+    /**
+     * <p>getSocketReceiveBufferSize.</p>
+     *
+     * @return the socket receive buffer size in bytes, 0 if not set.
+     */
+    public int getSocketReceiveBufferSize() {
+        return (int) ByteSize.parse(value(socketReceiveBufferSize, SOCKET_RECEIVE_BUFFER_SIZE_PROP), 0);
+    }
+
+    /**
+     * <p>getExpectContinue.</p>
+     *
+     * @return a {@link java.lang.Boolean} object, null if not set.
+     */
+    public Boolean getExpectContinue() {
+        String value = value(expectContinue, EXPECT_CONTINUE_PROP);
+        return value == null ? null : Boolean.valueOf(value);
+    }
+
+    /**
+     * <p>getConnectionAcquisitionTimeout.</p>
+     *
+     * @return a {@link java.time.Duration} object, null if not set.
+     */
+    public Duration getConnectionAcquisitionTimeout() {
+        return seconds(value(connectionAcquisitionTimeout, CONNECTION_ACQUISITION_TIMEOUT_PROP));
+    }
+
+    /**
+     * <p>key.</p>
+     *
+     * @return a {@link java.lang.String} object identifying the effective settings.
+     */
+    public String key() {
+        return getMaxConnections() + "," + getConnectionTtl() + "," + getConnectionMaxIdleTime() + "," + getTcpKeepAlive() + ","
+                + getSocketSendBufferSize() + "," + getSocketReceiveBufferSize() + "," + getExpectContinue() + ","
+                + getConnectionAcquisitionTimeout();
+    }
+
+    private static Duration seconds(String value) {
+        return value == null ? null : Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+    }
+
+    private static String value(String configured, String systemProperty) {
+        String value = configured != null ? configured : System.getProperty(systemProperty);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+/**
+ * <p>InstanceMetadataProperty class.</p>
+ * <p>
+ * The EC2 instance metadata service is probed for the region and the credentials unless it is
+ * disabled in the configuration or as a system property. Outside of EC2 the probes only end with
+ * their timeouts, disabling them makes the connect fail fast instead.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class InstanceMetadataProperty {
+
+    private static final String ENABLED_PROP = "S3_INSTANCE_METADATA";
+
+    private final String enabled;
+
+    /**
+     * <p>Constructor for InstanceMetadataProperty.</p>
+     *
+     * @param enabled a {@link java.lang.String} object, {@code false} to skip the metadata probes.
+     */
+    public InstanceMetadataProperty(String enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * <p>empty.</p>
+     *
+     * @return a {@link com.ehsaniara.s3.InstanceMetadataProperty} object with the system property or the default.
+     */
+    public static InstanceMetadataProperty empty() {
+        return new InstanceMetadataProperty(null);
+    }
+
+    /**
+     * <p>isEnabled.</p>
+     *
+     * @return true if the instance metadata service may be probed.
+     */
+    public boolean isEnabled() {
+        String value = enabled != null ? enabled : System.getProperty(ENABLED_PROP);
+        if (value == null || value.trim().isEmpty()) {
+            return true;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+}
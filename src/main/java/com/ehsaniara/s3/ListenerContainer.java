@@ -64,7 +64,7 @@ public interface ListenerContainer {
      *
      * @param resource a {@link org.apache.maven.wagon.resource.Resource} object.
      * @param requestType a int.
-     * @param localFile a {@link java.io.File} object.
+     * @param localFile a {@link java.io.File} object, null for a transfer from or to a stream.
      */
     void fireTransferStarted(Resource resource, int requestType, File localFile);
 
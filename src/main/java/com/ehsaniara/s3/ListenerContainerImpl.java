@@ -22,10 +22,13 @@ import org.apache.maven.wagon.events.TransferListener;
 import org.apache.maven.wagon.resource.Resource;
 
 import java.io.File;
-import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * <p>ListenerContainerImpl class.</p>
+ * <p>
+ * Thread safe, events are fired without a lock, so transfers running at the same time do not
+ * wait for each other's listeners. Every event is fired to the listeners registered at that time.
  *
  * @author jay
  * @version $Id: $Id
@@ -33,7 +36,7 @@ import java.util.Vector;
 public class ListenerContainerImpl implements ListenerContainer {
 
     private final Wagon wagon;
-    private final Vector<TransferListener> transferListeners;
+    private final CopyOnWriteArrayList<TransferListener> transferListeners;
 
     /**
      * <p>Constructor for ListenerContainerImpl.</p>
@@ -42,7 +45,7 @@ public class ListenerContainerImpl implements ListenerContainer {
      */
     public ListenerContainerImpl(Wagon wagon) {
         this.wagon = wagon;
-        this.transferListeners = new Vector<>();
+        this.transferListeners = new CopyOnWriteArrayList<>();
     }
 
     /** {@inheritDoc} */
@@ -51,9 +54,7 @@ public class ListenerContainerImpl implements ListenerContainer {
         if (transferListener == null) {
             throw new NullPointerException();
         }
-        if (!transferListeners.contains(transferListener)) {
-            transferListeners.add(transferListener);
-        }
+        transferListeners.addIfAbsent(transferListener);
     }
 
     /** {@inheritDoc} */
@@ -78,8 +79,10 @@ public class ListenerContainerImpl implements ListenerContainer {
     /** {@inheritDoc} */
     @Override
     public void fireTransferStarted(Resource resource, int requestType, File localFile) {
-        resource.setContentLength(localFile.length());
-        resource.setLastModified(localFile.lastModified());
+        if (localFile != null) {
+            resource.setContentLength(localFile.length());
+            resource.setLastModified(localFile.lastModified());
+        }
         TransferEvent transferEvent = new TransferEvent(this.wagon, resource, TransferEvent.TRANSFER_STARTED, requestType);
         transferEvent.setLocalFile(localFile);
         transferListeners.forEach(tl -> tl.transferStarted(transferEvent));
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>MetadataCache class.</p>
+ * <p>
+ * Remembers HEAD results, missing keys and listings for the lifetime of a wagon session, so the
+ * same questions Maven asks over and over during a build are answered without a request to S3.
+ * Uploads of the session update the cache, so reads always see the session's own writes.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class MetadataCache {
+
+    private static final String HEAD = "head:";
+    private static final String CHILDREN = "children:";
+
+    private final Map<String, Object> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * <p>Constructor for MetadataCache.</p>
+     *
+     * @param maxEntries the number of results remembered, 0 disables the cache.
+     */
+    public MetadataCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * <p>disabled.</p>
+     *
+     * @return a {@link com.ehsaniara.s3.MetadataCache} object that remembers nothing.
+     */
+    public static MetadataCache disabled() {
+        return new MetadataCache(0);
+    }
+
+    /**
+     * <p>head.</p>
+     *
+     * @param key a {@link java.lang.String} object.
+     * @return the cached HEAD result of the key, or null if unknown.
+     */
+    public Head head(String key) {
+        return (Head) lookup(HEAD + key);
+    }
+
+    /**
+     * <p>children.</p>
+     *
+     * @param prefix a {@link java.lang.String} object.
+     * @return the cached entries directly below the prefix, or null if unknown.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> children(String prefix) {
+        return (List<String>) lookup(CHILDREN + prefix);
+    }
+
+    /**
+     * <p>found.</p>
+     *
+     * @param key           a {@link java.lang.String} object.
+     * @param contentLength a {@link java.lang.Long} object, may be null.
+     * @param lastModified  a {@link java.time.Instant} object, may be null.
+     * @param eTag          a {@link java.lang.String} object, may be null.
+     * @return the recorded {@link com.ehsaniara.s3.MetadataCache.Head}.
+     */
+    public Head found(String key, Long contentLength, Instant lastModified, String eTag) {
+        Head head = new Head(true, contentLength, lastModified, eTag);
+        store(HEAD + key, head);
+        return head;
+    }
+
+    /**
+     * <p>missing.</p>
+     *
+     * @param key a {@link java.lang.String} object.
+     * @return the recorded {@link com.ehsaniara.s3.MetadataCache.Head}.
+     */
+    public Head missing(String key) {
+        store(HEAD + key, Head.MISSING);
+        return Head.MISSING;
+    }
+
+    /**
+     * <p>listedChildren.</p>
+     *
+     * @param prefix  a {@link java.lang.String} object.
+     * @param entries a {@link java.util.List} object.
+     */
+    public void listedChildren(String prefix, List<String> entries) {
+        store(CHILDREN + prefix, CompactKeyList.copyOf(entries));
+    }
+
+    /**
+     * Records an upload of this session and forgets the listings it changed. The last modified time is left
+     * unknown, it is set by S3 and a local clock would not compare with it.
+     *
+     * @param key           a {@link java.lang.String} object.
+     * @param contentLength the size of the uploaded file.
+     * @param eTag          a {@link java.lang.String} object, may be null.
+     */
+    public void written(String key, long contentLength, String eTag) {
+        synchronized (entries) {
+            entries.keySet().removeIf(entry -> covers(entry, CHILDREN, key));
+            entries.put(HEAD + key, new Head(true, contentLength, null, eTag));
+        }
+    }
+
+    /**
+     * <p>getHits.</p>
+     *
+     * @return the number of lookups answered from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * <p>getMisses.</p>
+     *
+     * @return the number of lookups that had to go to S3.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static boolean covers(String entry, String namespace, String key) {
+        return entry.startsWith(namespace) && key.startsWith(entry.substring(namespace.length()));
+    }
+
+    private Object lookup(String entry) {
+        Object value;
+        synchronized (entries) {
+            value = entries.get(entry);
+        }
+        (value == null ? misses : hits).incrementAndGet();
+        return value;
+    }
+
+    private void store(String entry, Object value) {
+        synchronized (entries) {
+            entries.put(entry, value);
+        }
+    }
+
+    /**
+     * The cached result of a HEAD request.
+     */
+    @Getter
+    public static final class Head {
+
+        static final Head MISSING = new Head(false, null, null, null);
+
+        private final boolean exists;
+        private final Long contentLength;
+        private final Instant lastModified;
+        private final String eTag;
+
+        private Head(boolean exists, Long contentLength, Instant lastModified, String eTag) {
+            this.exists = exists;
+            this.contentLength = contentLength;
+            this.lastModified = lastModified;
+            this.eTag = eTag;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * <p>MultipartUpload class.</p>
+ * <p>
+ * Uploads a single file as an S3 multipart upload. Parts are sent concurrently, each part is
+ * retried on its own and the upload is aborted if any part finally fails, so no orphaned parts
+ * are left behind in the bucket.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public class MultipartUpload {
+
+    static final int MAX_PART_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 200;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String key;
+    private final boolean publicRead;
+    private final MultipartUploadProperty property;
+
+    /**
+     * <p>Constructor for MultipartUpload.</p>
+     *
+     * @param s3Client   a {@link software.amazon.awssdk.services.s3.S3Client} object.
+     * @param bucket     a {@link java.lang.String} object.
+     * @param key        a {@link java.lang.String} object.
+     * @param publicRead upload the object with public-read ACL.
+     * @param property   a {@link com.ehsaniara.s3.MultipartUploadProperty} object.
+     */
+    public MultipartUpload(S3Client s3Client, String bucket, String key, boolean publicRead, MultipartUploadProperty property) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.key = key;
+        this.publicRead = publicRead;
+        this.property = property;
+    }
+
+    /**
+     * <p>upload.</p>
+     *
+     * @param file     a {@link java.io.File} object.
+     * @param progress a {@link com.ehsaniara.s3.Progress} object, called from the part upload threads.
+     * @throws java.io.IOException if the file could not be read or a part could not be uploaded.
+     */
+    public void upload(File file, Progress progress) throws IOException {
+        final long contentLength = file.length();
+        final long partSize = property.getPartSize(contentLength);
+        final int partCount = (int) ((contentLength + partSize - 1) / partSize);
+
+        CreateMultipartUploadRequest.Builder createRequest = CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key);
+        if (publicRead) {
+            createRequest.acl(ObjectCannedACL.PUBLIC_READ);
+        }
+        final String uploadId = s3Client.createMultipartUpload(createRequest.build()).uploadId();
+
+        log.fine(String.format("Uploading %s in %d parts of %d bytes (upload id %s)", key, partCount, partSize, uploadId));
+
+        // the listeners behind Progress are not thread safe
+        final Progress sharedProgress = new Progress() {
+            @Override
+            public void progress(byte[] buffer, int length) {
+                progress(buffer, 0, length);
+            }
+
+            @Override
+            public void progress(byte[] buffer, int offset, int length) {
+                synchronized (progress) {
+                    progress.progress(buffer, offset, length);
+                }
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(property.getConcurrency(), partCount), r -> {
+            Thread thread = new Thread(r, "s3-multipart-upload-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<CompletedPart>> futures = new ArrayList<>(partCount);
+            for (int i = 0; i < partCount; i++) {
+                final int partNumber = i + 1;
+                final long offset = i * partSize;
+                final long length = Math.min(partSize, contentLength - offset);
+                futures.add(executor.submit(() -> uploadPart(file, uploadId, partNumber, offset, length, sharedProgress)));
+            }
+
+            List<CompletedPart> completedParts = new ArrayList<>(partCount);
+            for (Future<CompletedPart> future : futures) {
+                completedParts.add(future.get());
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(uploadId);
+            throw new IOException("Interrupted while uploading " + key, e);
+        } catch (ExecutionException e) {
+            abort(uploadId);
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException("Could not upload " + key, cause);
+        } catch (SdkException e) {
+            abort(uploadId);
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private CompletedPart uploadPart(File file, String uploadId, int partNumber, long offset, long length, Progress progress) throws InterruptedException {
+        // one provider for all attempts, so a retried part is not reported twice
+        try (FileContentProvider content = new FileContentProvider(file, offset, length, progress)) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    UploadPartRequest request = UploadPartRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .partNumber(partNumber)
+                            .contentLength(length)
+                            .build();
+
+                    UploadPartResponse response = s3Client.uploadPart(request, content.requestBody());
+
+                    return CompletedPart.builder()
+                            .partNumber(partNumber)
+                            .eTag(response.eTag())
+                            .build();
+                } catch (SdkException e) {
+                    if (attempt >= MAX_PART_ATTEMPTS || !isRetryable(e)) {
+                        throw e;
+                    }
+                    log.log(Level.FINE, String.format("Retrying part %d of %s (attempt %d)", partNumber, key, attempt + 1), e);
+                    Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+                }
+            }
+        }
+    }
+
+    private static boolean isRetryable(SdkException e) {
+        if (e.getCause() instanceof RuntimeException && !(e.getCause() instanceof SdkException)) {
+            // thrown by the progress of the caller while the body was read, e.g. a cancelled transfer
+            return false;
+        }
+        if (e instanceof S3Exception) {
+            return ((S3Exception) e).statusCode() >= 500;
+        }
+        return e instanceof SdkClientException || e.retryable();
+    }
+
+    private void abort(String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (SdkException e) {
+            log.log(Level.WARNING, String.format("Could not abort multipart upload %s of %s", uploadId, key), e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+/**
+ * <p>MultipartUploadProperty class.</p>
+ * <p>
+ * Files at or above the threshold are uploaded with the S3 multipart API. Values come from the
+ * wagon configuration first and fall back to system properties.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class MultipartUploadProperty {
+
+    private static final String THRESHOLD_PROP = "S3_MULTIPART_THRESHOLD";
+    private static final String PART_SIZE_PROP = "S3_MULTIPART_PART_SIZE";
+    private static final String CONCURRENCY_PROP = "S3_MULTIPART_CONCURRENCY";
+
+    // S3 rejects parts smaller than 5MB (except the last one) and uploads with more than 10000 parts
+    static final long MIN_PART_SIZE = 5 * ByteSize.MB;
+    static final long MAX_PART_SIZE = 5 * ByteSize.GB;
+    static final int MAX_PARTS = 10000;
+    // keeps the number of requests for very large files reasonable
+    static final int TARGET_PARTS = 1000;
+
+    static final long DEFAULT_THRESHOLD = 16 * ByteSize.MB;
+    static final long DEFAULT_PART_SIZE = 8 * ByteSize.MB;
+    static final int DEFAULT_CONCURRENCY = 4;
+
+    private final String threshold;
+    private final String partSize;
+    private final String concurrency;
+
+    /**
+     * <p>Constructor for MultipartUploadProperty.</p>
+     *
+     * @param threshold   a {@link java.lang.String} object, e.g. {@code 16MB}.
+     * @param partSize    a {@link java.lang.String} object, e.g. {@code 8MB}.
+     * @param concurrency a {@link java.lang.String} object.
+     */
+    public MultipartUploadProperty(String threshold, String partSize, String concurrency) {
+        this.threshold = threshold;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * <p>empty.</p>
+     *
+     * @return a {@link com.ehsaniara.s3.MultipartUploadProperty} object using the defaults.
+     */
+    public static MultipartUploadProperty empty() {
+        return new MultipartUploadProperty(null, null, null);
+    }
+
+    /**
+     * <p>getThreshold.</p>
+     *
+     * @return the smallest file size in bytes that is uploaded in parts.
+     */
+    public long getThreshold() {
+        return Math.max(MIN_PART_SIZE, ByteSize.parse(value(threshold, THRESHOLD_PROP), DEFAULT_THRESHOLD));
+    }
+
+    /**
+     * Part size for a file of the given length. The configured size is a lower bound, larger files
+     * get larger parts so the upload stays around {@link #TARGET_PARTS} requests.
+     *
+     * @param contentLength the file size in bytes.
+     * @return the part size in bytes.
+     */
+    public long getPartSize(long contentLength) {
+        long configured = Math.max(MIN_PART_SIZE, ByteSize.parse(value(partSize, PART_SIZE_PROP), DEFAULT_PART_SIZE));
+        long scaled = (contentLength + TARGET_PARTS - 1) / TARGET_PARTS;
+        // round up to a whole MB
+        scaled = (scaled + ByteSize.MB - 1) / ByteSize.MB * ByteSize.MB;
+        return Math.min(MAX_PART_SIZE, Math.max(configured, scaled));
+    }
+
+    /**
+     * <p>getConcurrency.</p>
+     *
+     * @return the number of parts uploaded at the same time.
+     */
+    public int getConcurrency() {
+        String value = value(concurrency, CONCURRENCY_PROP);
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_CONCURRENCY;
+        }
+        return Math.max(1, Integer.parseInt(value.trim()));
+    }
+
+    /**
+     * <p>key.</p>
+     *
+     * @return a {@link java.lang.String} object identifying the settings of the SDK managed multipart uploads.
+     */
+    public String key() {
+        long effectiveThreshold = getThreshold();
+        return effectiveThreshold + "," + getPartSize(effectiveThreshold);
+    }
+
+    private static String value(String configured, String systemProperty) {
+        if (configured != null) {
+            return configured;
+        }
+        return System.getProperty(systemProperty);
+    }
+}
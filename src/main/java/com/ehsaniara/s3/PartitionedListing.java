@@ -0,0 +1,230 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * <p>PartitionedListing class.</p>
+ * <p>
+ * Lists a large prefix with several continuation chains at once. The child prefixes are
+ * discovered with delimited listings, level by level, until there are enough partitions. The
+ * partitions are listed concurrently, each by a {@link com.ehsaniara.s3.PrefixObjectsIterator},
+ * and read one after the other. S3 lists in key order and the key range of a child prefix does
+ * not overlap with any other entry of its level, so the objects come out in key order.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public class PartitionedListing implements Iterator<S3Object>, AutoCloseable {
+
+    private static final int MAX_DISCOVERY_DEPTH = 3;
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final int parallelism;
+    private final int maxKeys;
+    private final String startAfter;
+
+    // the entries in key order, either an S3Object or the String of a prefix still to list
+    private final Deque<Object> entries;
+    // the partitions listed ahead, in the order of the entries they were started for
+    private final Deque<PrefixObjectsIterator> running = new ArrayDeque<>();
+    private PrefixObjectsIterator current;
+
+    /**
+     * <p>Constructor for PartitionedListing.</p>
+     *
+     * @param s3Client    a {@link software.amazon.awssdk.services.s3.S3Client} object.
+     * @param bucket      a {@link java.lang.String} object.
+     * @param prefix      a {@link java.lang.String} object.
+     * @param parallelism the number of partitions listed at the same time.
+     * @param maxKeys     the number of keys requested per page.
+     * @param startAfter  a {@link java.lang.String} object, the key after which the listing starts, may be null.
+     */
+    public PartitionedListing(S3Client s3Client, String bucket, String prefix, int parallelism, int maxKeys, String startAfter) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxKeys = maxKeys > 0 ? maxKeys : PrefixObjectsIterator.DEFAULT_MAX_KEYS;
+        this.startAfter = startAfter;
+        this.entries = new ArrayDeque<>(discover(prefix));
+        if (startAfter != null) {
+            entries.removeIf(entry -> entry instanceof S3Object && ((S3Object) entry).key().compareTo(startAfter) <= 0);
+        }
+        startPartitions();
+    }
+
+    private List<Object> discover(String prefix) {
+        List<Object> level = new ArrayList<>();
+        level.add(prefix);
+        Set<String> unsplittable = new HashSet<>();
+
+        for (int depth = 0; depth < MAX_DISCOVERY_DEPTH && partitions(level) < parallelism; depth++) {
+            List<Object> next = new ArrayList<>();
+            boolean expanded = false;
+            for (Object entry : level) {
+                List<Object> children = entry instanceof String && !unsplittable.contains(entry) ? children((String) entry) : null;
+                if (children == null && entry instanceof String) {
+                    unsplittable.add((String) entry);
+                }
+                if (children != null) {
+                    next.addAll(children);
+                    expanded = true;
+                } else {
+                    next.add(entry);
+                }
+            }
+            level = next;
+            if (!expanded) {
+                break;
+            }
+        }
+
+        log.fine(String.format("Listing %s in %d partitions", prefix, partitions(level)));
+        return level;
+    }
+
+    private List<Object> children(String prefix) {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .delimiter("/")
+                .maxKeys(maxKeys)
+                .build();
+
+        ListObjectsV2Response page = s3Client.listObjectsV2(request);
+        if (Boolean.TRUE.equals(page.isTruncated())) {
+            // a level with more than a page of entries is listed as one partition, discovering it would be a listing on its own
+            return null;
+        }
+
+        // both lists of a page are sorted, merged they keep the key order
+        List<Object> children = new ArrayList<>();
+        List<S3Object> contents = page.contents();
+        List<CommonPrefix> commonPrefixes = page.commonPrefixes();
+        int c = 0;
+        int p = 0;
+        while (c < contents.size() || p < commonPrefixes.size()) {
+            if (p == commonPrefixes.size()
+                    || c < contents.size() && contents.get(c).key().compareTo(commonPrefixes.get(p).prefix()) < 0) {
+                children.add(contents.get(c++));
+            } else {
+                children.add(commonPrefixes.get(p++).prefix());
+            }
+        }
+        return children;
+    }
+
+    private static int partitions(List<Object> level) {
+        int partitions = 0;
+        for (Object entry : level) {
+            if (entry instanceof String) {
+                partitions++;
+            }
+        }
+        return partitions;
+    }
+
+    private void startPartitions() {
+        Iterator<Object> pending = entries.iterator();
+        // the first prefixes of the entries are already running
+        int skip = running.size();
+        while (running.size() < parallelism && pending.hasNext()) {
+            Object entry = pending.next();
+            if (entry instanceof String) {
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                running.addLast(new PrefixObjectsIterator(s3Client, bucket, (String) entry, maxKeys, startAfter));
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void forEachRemaining(Consumer<? super S3Object> action) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (current != null) {
+                if (current.hasNext()) {
+                    return true;
+                }
+                current.close();
+                current = null;
+                startPartitions();
+            }
+            if (entries.isEmpty()) {
+                return false;
+            }
+            if (entries.peekFirst() instanceof S3Object) {
+                return true;
+            }
+            entries.removeFirst();
+            current = running.removeFirst();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public S3Object next() {
+        if (!hasNext()) {
+            return null;
+        }
+
+        return current != null ? current.next() : (S3Object) entries.removeFirst();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        if (current != null) {
+            current.close();
+        }
+        running.forEach(PrefixObjectsIterator::close);
+        running.clear();
+        entries.clear();
+    }
+
+}
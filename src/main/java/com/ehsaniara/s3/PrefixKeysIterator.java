@@ -17,13 +17,8 @@
 package com.ehsaniara.s3;
 
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
-import software.amazon.awssdk.services.s3.model.S3Object;
-import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
 
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.function.Consumer;
 
 /**
@@ -32,14 +27,9 @@ import java.util.function.Consumer;
  * @author jay
  * @version $Id: $Id
  */
-public class PrefixKeysIterator implements Iterator<String> {
+public class PrefixKeysIterator implements Iterator<String>, AutoCloseable {
 
-    private final S3Client s3Client;
-    private final String prefix;
-    private final String bucket;
-
-    private Iterator<S3Object> s3ObjectIterator;
-    private List<String> currentKeys = new ArrayList<>();
+    private final PrefixObjectsIterator objects;
 
     /**
      * <p>Constructor for PrefixKeysIterator.</p>
@@ -49,21 +39,7 @@ public class PrefixKeysIterator implements Iterator<String> {
      * @param prefix a {@link java.lang.String} object.
      */
     public PrefixKeysIterator(S3Client s3Client, String bucket, String prefix) {
-        this.s3Client = s3Client;
-        this.bucket = bucket;
-        this.prefix = prefix;
-        initializeIterator();
-    }
-
-    private void initializeIterator() {
-        ListObjectsV2Request request = ListObjectsV2Request.builder()
-                .bucket(bucket)
-                .prefix(prefix)
-                .build();
-
-        // SDK v2 paginators handle all pagination automatically
-        ListObjectsV2Iterable responses = s3Client.listObjectsV2Paginator(request);
-        this.s3ObjectIterator = responses.contents().iterator();
+        this.objects = new PrefixObjectsIterator(s3Client, bucket, prefix);
     }
 
     /** {@inheritDoc} */
@@ -81,15 +57,7 @@ public class PrefixKeysIterator implements Iterator<String> {
     /** {@inheritDoc} */
     @Override
     public boolean hasNext() {
-        if (!currentKeys.isEmpty()) {
-            return true;
-        }
-        // Prefetch next key if available
-        if (s3ObjectIterator.hasNext()) {
-            currentKeys.add(s3ObjectIterator.next().key());
-            return true;
-        }
-        return false;
+        return objects.hasNext();
     }
 
     /** {@inheritDoc} */
@@ -99,7 +67,13 @@ public class PrefixKeysIterator implements Iterator<String> {
             return null;
         }
 
-        return currentKeys.remove(0);
+        return objects.next().key();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        objects.close();
     }
 
 }
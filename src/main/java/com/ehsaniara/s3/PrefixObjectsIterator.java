@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * <p>PrefixObjectsIterator class.</p>
+ * <p>
+ * Iterates the objects below a prefix together with the metadata of the listing, i.e. size,
+ * ETag and last modification, which is enough to tell whether a local copy is up to date
+ * without a request per object.
+ * <p>
+ * Once the iteration has started, the pages are fetched by a background thread, so the next page
+ * is already requested while the current one is consumed. At most {@value #LOOK_AHEAD_PAGES}
+ * pages are buffered.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class PrefixObjectsIterator implements Iterator<S3Object>, AutoCloseable {
+
+    /**
+     * The page size S3 uses when none is requested.
+     */
+    public static final int DEFAULT_MAX_KEYS = 1000;
+
+    private static final int LOOK_AHEAD_PAGES = 2;
+    private static final S3Object END = S3Object.builder().build();
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final SdkIterable<S3Object> contents;
+    private final BlockingQueue<S3Object> objects;
+    private Thread prefetcher;
+    private volatile RuntimeException failure;
+    private volatile boolean closed;
+    private S3Object next;
+    private boolean done;
+
+    /**
+     * <p>Constructor for PrefixObjectsIterator.</p>
+     *
+     * @param s3Client a {@link software.amazon.awssdk.services.s3.S3Client} object.
+     * @param bucket a {@link java.lang.String} object.
+     * @param prefix a {@link java.lang.String} object.
+     */
+    public PrefixObjectsIterator(S3Client s3Client, String bucket, String prefix) {
+        this(s3Client, bucket, prefix, DEFAULT_MAX_KEYS, null);
+    }
+
+    /**
+     * <p>Constructor for PrefixObjectsIterator.</p>
+     *
+     * @param s3Client   a {@link software.amazon.awssdk.services.s3.S3Client} object.
+     * @param bucket     a {@link java.lang.String} object.
+     * @param prefix     a {@link java.lang.String} object.
+     * @param maxKeys    the number of keys requested per page.
+     * @param startAfter a {@link java.lang.String} object, the key after which the listing starts, may be null.
+     */
+    public PrefixObjectsIterator(S3Client s3Client, String bucket, String prefix, int maxKeys, String startAfter) {
+        final int pageSize = maxKeys > 0 ? maxKeys : DEFAULT_MAX_KEYS;
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .maxKeys(pageSize)
+                .startAfter(startAfter)
+                .build();
+
+        // SDK v2 paginators handle all pagination automatically, no page is requested before the iteration starts
+        this.contents = s3Client.listObjectsV2Paginator(request).contents();
+        this.objects = new ArrayBlockingQueue<>(pageSize * LOOK_AHEAD_PAGES);
+    }
+
+    private void prefetch() {
+        try {
+            for (S3Object s3Object : contents) {
+                objects.put(s3Object);
+            }
+        } catch (InterruptedException e) {
+            // closed by the consumer
+            return;
+        } catch (RuntimeException e) {
+            if (closed) {
+                // the SDK turned the interrupt of close into an exception
+                return;
+            }
+            failure = e;
+        }
+        try {
+            objects.put(END);
+        } catch (InterruptedException e) {
+            // closed by the consumer
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void forEachRemaining(Consumer<? super S3Object> action) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (done) {
+            return false;
+        }
+        if (prefetcher == null) {
+            prefetcher = new Thread(this::prefetch, "s3-list-prefetch-" + THREAD_COUNT.incrementAndGet());
+            prefetcher.setDaemon(true);
+            prefetcher.start();
+        }
+        try {
+            next = objects.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("Interrupted while listing", e);
+        }
+        if (next == END) {
+            next = null;
+            done = true;
+            if (failure != null) {
+                throw failure;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public S3Object next() {
+        if (!hasNext()) {
+            return null;
+        }
+
+        S3Object s3Object = next;
+        next = null;
+        return s3Object;
+    }
+
+    /**
+     * Stops the background listing, needed only if the iterator is abandoned before its end.
+     */
+    @Override
+    public void close() {
+        done = true;
+        closed = true;
+        if (prefetcher != null) {
+            prefetcher.interrupt();
+        }
+    }
+
+}
@@ -16,6 +16,8 @@
 
 package com.ehsaniara.s3;
 
+import java.util.Arrays;
+
 /**
  * <p>Progress interface.</p>
  *
@@ -32,4 +34,18 @@ public interface Progress {
      */
     void progress(byte[] buffer, int length);
 
+    /**
+     * <p>progress.</p>
+     * <p>
+     * Reports the bytes between {@code offset} and {@code offset + length} of the buffer. The default copies the
+     * slice when it does not start at 0, implementations that can take an offset override it.
+     *
+     * @param buffer an array of {@link Byte} objects.
+     * @param offset a int.
+     * @param length a int.
+     */
+    default void progress(byte[] buffer, int offset, int length) {
+        progress(offset == 0 ? buffer : Arrays.copyOfRange(buffer, offset, offset + length), length);
+    }
+
 }
@@ -29,6 +29,8 @@ public class ProgressImpl implements Progress {
     private final Resource resource;
     private final int requestType;
     private final ListenerContainer listenerContainer;
+    // the wagon listeners take no offset, a slice is copied here instead of into a new array each time
+    private byte[] scratch = new byte[0];
 
     /**
      * <p>Constructor for ProgressImpl.</p>
@@ -48,4 +50,18 @@ public class ProgressImpl implements Progress {
     public void progress(byte[] buffer, int length) {
         listenerContainer.fireTransferProgress(this.resource, this.requestType, buffer, length);
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public void progress(byte[] buffer, int offset, int length) {
+        if (offset == 0) {
+            progress(buffer, length);
+            return;
+        }
+        if (scratch.length < length) {
+            scratch = new byte[length];
+        }
+        System.arraycopy(buffer, offset, scratch, 0, length);
+        progress(scratch, length);
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>ProgressInputStream class.</p>
+ * <p>
+ * Reports every chunk read from the wrapped stream to a {@link com.ehsaniara.s3.Progress}.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class ProgressInputStream extends FilterInputStream {
+
+    private final Progress progress;
+    private final byte[] single = new byte[1];
+
+    /**
+     * <p>Constructor for ProgressInputStream.</p>
+     *
+     * @param in       a {@link java.io.InputStream} object.
+     * @param progress a {@link com.ehsaniara.s3.Progress} object.
+     */
+    public ProgressInputStream(InputStream in, Progress progress) {
+        super(in);
+        this.progress = progress;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            single[0] = (byte) b;
+            progress.progress(single, 1);
+        }
+        return b;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int count = in.read(b, off, len);
+        if (count > 0) {
+            progress.progress(b, off, count);
+        }
+        return count;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * <p>RangedDownload class.</p>
+ * <p>
+ * Downloads a large object with concurrent byte range requests into a preallocated temporary file
+ * next to the destination, which is moved into place once every range has been written. The first
+ * range is read from the already open full GET response, the others are pinned to its ETag so a
+ * concurrent overwrite of the object fails the download instead of mixing two versions.
+ * Every range is streamed straight to its offset in the file, so memory use does not grow with
+ * the part size or the concurrency.
+ * <p>
+ * Progress is reported strictly in file order with the downloaded bytes, because Maven resolver
+ * computes the artifact checksums from the progress events. Completed ranges are read back from
+ * the file for that, in file order.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public class RangedDownload {
+
+    static final int MAX_RANGE_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 200;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String key;
+    private final RangedDownloadProperty property;
+
+    /**
+     * <p>Constructor for RangedDownload.</p>
+     *
+     * @param s3Client a {@link software.amazon.awssdk.services.s3.S3Client} object.
+     * @param bucket   a {@link java.lang.String} object.
+     * @param key      a {@link java.lang.String} object.
+     * @param property a {@link com.ehsaniara.s3.RangedDownloadProperty} object.
+     */
+    public RangedDownload(S3Client s3Client, String bucket, String key, RangedDownloadProperty property) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.key = key;
+        this.property = property;
+    }
+
+    /**
+     * <p>download.</p>
+     *
+     * @param s3Object    the open response of a full GET of the object, always closed by this method.
+     * @param destination a {@link java.io.File} object.
+     * @param progress    a {@link com.ehsaniara.s3.Progress} object, only called from the calling thread.
+     * @throws java.io.IOException if any range could not be downloaded or written.
+     */
+    public void download(ResponseInputStream<GetObjectResponse> s3Object, File destination, Progress progress) throws IOException {
+        final GetObjectResponse response = s3Object.response();
+        final long contentLength = response.contentLength();
+        final long partSize = property.getPartSize();
+        final int partCount = (int) ((contentLength + partSize - 1) / partSize);
+        final String eTag = response.eTag();
+
+        log.fine(String.format("Downloading %s in %d ranges of %d bytes", key, partCount, partSize));
+
+        Path temp = Files.createTempFile(destination.getParentFile().toPath(), destination.getName() + ".", ".s3tmp");
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(property.getConcurrency(), partCount - 1)), r -> {
+            Thread thread = new Thread(r, "s3-ranged-download-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        boolean completed = false;
+        try {
+            try (RandomAccessFile file = new RandomAccessFile(temp.toFile(), "rw")) {
+                file.setLength(contentLength);
+                final FileChannel channel = file.getChannel();
+
+                // at most `concurrency` ranges are in flight ahead of the reported one
+                Deque<Future<?>> window = new ArrayDeque<>();
+                int nextPart = 1;
+                while (nextPart < partCount && window.size() < property.getConcurrency()) {
+                    window.add(submit(executor, channel, eTag, nextPart++, partSize, contentLength));
+                }
+
+                copyFirstRange(s3Object, channel, Math.min(partSize, contentLength), progress);
+
+                byte[] buffer = new byte[BUFFER_SIZE];
+                for (int part = 1; !window.isEmpty(); part++) {
+                    window.poll().get();
+                    long offset = part * partSize;
+                    reportRange(channel, offset, Math.min(offset + partSize, contentLength) - offset, buffer, progress);
+                    if (nextPart < partCount) {
+                        window.add(submit(executor, channel, eTag, nextPart++, partSize, contentLength));
+                    }
+                }
+            }
+            AtomicFileWriter.moveIntoPlace(temp, destination.toPath());
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Could not download " + key, cause);
+        } finally {
+            executor.shutdownNow();
+            if (!completed) {
+                s3Object.abort();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private void copyFirstRange(ResponseInputStream<GetObjectResponse> s3Object, FileChannel channel, long length, Progress progress) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long position = 0;
+        try {
+            while (position < length) {
+                int count = s3Object.read(buffer, 0, (int) Math.min(buffer.length, length - position));
+                if (count < 0) {
+                    throw new IOException("Unexpected end of stream while downloading " + key);
+                }
+                writeFully(channel, ByteBuffer.wrap(buffer, 0, count), position);
+                progress.progress(buffer, count);
+                position += count;
+            }
+        } finally {
+            // the remaining ranges are fetched separately, drop the connection instead of draining it
+            s3Object.abort();
+        }
+    }
+
+    private static void reportRange(FileChannel channel, long offset, long length, byte[] buffer, Progress progress) throws IOException {
+        long position = 0;
+        while (position < length) {
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, (int) Math.min(buffer.length, length - position));
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk, offset + position + chunk.position()) < 0) {
+                    throw new IOException("Unexpected end of the temporary file at " + (offset + position));
+                }
+            }
+            progress.progress(buffer, chunk.position());
+            position += chunk.position();
+        }
+    }
+
+    private Future<?> submit(ExecutorService executor, FileChannel channel, String eTag, int part, long partSize, long contentLength) {
+        final long offset = part * partSize;
+        final long end = Math.min(offset + partSize, contentLength) - 1;
+        return executor.submit(() -> {
+            fetchRange(channel, eTag, offset, end);
+            return null;
+        });
+    }
+
+    private void fetchRange(FileChannel channel, String eTag, long offset, long end) throws IOException, InterruptedException {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range(String.format("bytes=%d-%d", offset, end))
+                .ifMatch(eTag)
+                .build();
+
+        for (int attempt = 1; ; attempt++) {
+            try (InputStream inputStream = s3Client.getObject(request)) {
+                // a retry writes the whole range again over the same offsets
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long position = offset;
+                int count;
+                while (position <= end && (count = inputStream.read(buffer, 0, (int) Math.min(buffer.length, end - position + 1))) >= 0) {
+                    writeFully(channel, ByteBuffer.wrap(buffer, 0, count), position);
+                    position += count;
+                }
+                if (position <= end) {
+                    throw new IOException(String.format("Range %d-%d of %s ended at %d", offset, end, key, position));
+                }
+                return;
+            } catch (SdkException | IOException e) {
+                if (attempt >= MAX_RANGE_ATTEMPTS || !isRetryable(e)) {
+                    throw e;
+                }
+                log.log(Level.FINE, String.format("Retrying range %d-%d of %s (attempt %d)", offset, end, key, attempt + 1), e);
+                Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+            }
+        }
+    }
+
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof S3Exception) {
+            return ((S3Exception) e).statusCode() >= 500;
+        }
+        return e instanceof IOException || e instanceof SdkClientException || ((SdkException) e).retryable();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+/**
+ * <p>RangedDownloadProperty class.</p>
+ * <p>
+ * Objects at or above the threshold are downloaded as concurrent byte range requests. The mode is
+ * off unless a threshold is set in the wagon configuration or as a system property.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class RangedDownloadProperty {
+
+    private static final String THRESHOLD_PROP = "S3_RANGED_DOWNLOAD_THRESHOLD";
+    private static final String PART_SIZE_PROP = "S3_RANGED_DOWNLOAD_PART_SIZE";
+    private static final String CONCURRENCY_PROP = "S3_RANGED_DOWNLOAD_CONCURRENCY";
+
+    static final long DEFAULT_PART_SIZE = 8 * ByteSize.MB;
+    // every range is buffered in memory until it is reported
+    static final long MAX_PART_SIZE = 256 * ByteSize.MB;
+    static final int DEFAULT_CONCURRENCY = 4;
+
+    private final String threshold;
+    private final String partSize;
+    private final String concurrency;
+
+    /**
+     * <p>Constructor for RangedDownloadProperty.</p>
+     *
+     * @param threshold   a {@link java.lang.String} object, e.g. {@code 32MB}.
+     * @param partSize    a {@link java.lang.String} object, e.g. {@code 8MB}.
+     * @param concurrency a {@link java.lang.String} object.
+     */
+    public RangedDownloadProperty(String threshold, String partSize, String concurrency) {
+        this.threshold = threshold;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * <p>empty.</p>
+     *
+     * @return a {@link com.ehsaniara.s3.RangedDownloadProperty} object with ranged downloads disabled.
+     */
+    public static RangedDownloadProperty empty() {
+        return new RangedDownloadProperty(null, null, null);
+    }
+
+    /**
+     * <p>isEnabled.</p>
+     *
+     * @return true if a threshold is configured.
+     */
+    public boolean isEnabled() {
+        return getThreshold() > 0;
+    }
+
+    /**
+     * <p>getThreshold.</p>
+     *
+     * @return the smallest object size in bytes that is downloaded in ranges, 0 if disabled.
+     */
+    public long getThreshold() {
+        return ByteSize.parse(value(threshold, THRESHOLD_PROP), 0);
+    }
+
+    /**
+     * <p>getPartSize.</p>
+     *
+     * @return the size in bytes of a single range request.
+     */
+    public long getPartSize() {
+        return Math.min(MAX_PART_SIZE, Math.max(1, ByteSize.parse(value(partSize, PART_SIZE_PROP), DEFAULT_PART_SIZE)));
+    }
+
+    /**
+     * <p>getConcurrency.</p>
+     *
+     * @return the number of ranges fetched at the same time.
+     */
+    public int getConcurrency() {
+        String value = value(concurrency, CONCURRENCY_PROP);
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_CONCURRENCY;
+        }
+        return Math.max(1, Integer.parseInt(value.trim()));
+    }
+
+    private static String value(String configured, String systemProperty) {
+        if (configured != null) {
+            return configured;
+        }
+        return System.getProperty(systemProperty);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * <p>RegionCache class.</p>
+ * <p>
+ * Resolves the region of a bucket once per JVM when none is configured, so further connects skip
+ * the region provider chain. With the {@code S3_REGION_CACHE_FILE} system property the region S3
+ * reports for the bucket is kept in that properties file, and the next builds use it instead of
+ * the region provider chain. Only the location of the bucket itself is stored, so the file never
+ * holds a region that merely came from the environment of an earlier build.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public final class RegionCache {
+
+    static final String CACHE_FILE_PROP = "S3_REGION_CACHE_FILE";
+
+    // marks a bucket for which no region could be resolved
+    private static final String NONE = "";
+
+    private static final String BUCKET_REGION_HEADER = "x-amz-bucket-region";
+
+    private static final Map<String, String> REGIONS = new ConcurrentHashMap<>();
+    private static final Set<String> LEARNED = ConcurrentHashMap.newKeySet();
+
+    private RegionCache() {
+    }
+
+    /**
+     * <p>resolve.</p>
+     *
+     * @param bucket           a {@link java.lang.String} object.
+     * @param configuredRegion a {@link java.lang.String} object, returned as is when present.
+     * @return the region of the bucket, or null if none could be resolved.
+     */
+    public static String resolve(String bucket, String configuredRegion) {
+        if (configuredRegion != null && !configuredRegion.isEmpty()) {
+            return configuredRegion;
+        }
+        String region = REGIONS.computeIfAbsent(bucket == null ? "" : bucket, RegionCache::lookup);
+        return region.isEmpty() ? null : region;
+    }
+
+    /**
+     * Asks S3 for the region of the bucket and keeps it in the cache file, at most once per bucket
+     * and JVM. Does nothing without a cache file or when the file already knows the bucket.
+     *
+     * @param bucket   a {@link java.lang.String} object.
+     * @param s3Client a {@link software.amazon.awssdk.services.s3.S3Client} object, connected to any region.
+     */
+    public static void learn(String bucket, S3Client s3Client) {
+        File file = cacheFile();
+        if (file == null || bucket == null || !LEARNED.add(bucket) || load(file).getProperty(bucket) != null) {
+            return;
+        }
+
+        String region;
+        try {
+            region = s3Client.headBucket(HeadBucketRequest.builder().bucket(bucket).build()).bucketRegion();
+        } catch (S3Exception e) {
+            // a bucket in another region answers with a redirect that still names its region
+            region = Optional.ofNullable(e.awsErrorDetails())
+                    .flatMap(details -> details.sdkHttpResponse().firstMatchingHeader(BUCKET_REGION_HEADER))
+                    .orElse(null);
+        } catch (SdkException e) {
+            log.log(Level.FINE, "Could not look up the region of bucket " + bucket, e);
+            return;
+        }
+        if (region != null && !region.isEmpty()) {
+            REGIONS.put(bucket, region);
+            store(file, bucket, region);
+        }
+    }
+
+    static void clear() {
+        REGIONS.clear();
+        LEARNED.clear();
+    }
+
+    private static File cacheFile() {
+        String cacheFile = System.getProperty(CACHE_FILE_PROP);
+        return cacheFile == null || cacheFile.trim().isEmpty() ? null : new File(cacheFile.trim());
+    }
+
+    private static String lookup(String bucket) {
+        File file = cacheFile();
+
+        if (file != null) {
+            String cached = load(file).getProperty(bucket);
+            if (cached != null && !cached.isEmpty()) {
+                log.fine(String.format("Using the cached region %s of bucket %s", cached, bucket));
+                return cached;
+            }
+        }
+
+        String region = new S3RegionProviderOrder(null).getRegionString();
+        return region == null ? NONE : region;
+    }
+
+    private static Properties load(File file) {
+        Properties properties = new Properties();
+        if (file.isFile()) {
+            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                properties.load(inputStream);
+            } catch (IOException | IllegalArgumentException e) {
+                log.log(Level.WARNING, "Could not read the region cache " + file, e);
+            }
+        }
+        return properties;
+    }
+
+    private static synchronized void store(File file, String bucket, String region) {
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = null;
+        try {
+            Path parent = target.getParent();
+            if (!Files.isDirectory(parent)) {
+                Files.createDirectories(parent);
+            }
+            // other builds may have added buckets since it was read
+            Properties properties = load(file);
+            properties.setProperty(bucket, region);
+            temp = Files.createTempFile(parent, file.getName() + ".", ".s3tmp");
+            try (OutputStream outputStream = Files.newOutputStream(temp)) {
+                properties.store(outputStream, "S3 bucket regions");
+            }
+            AtomicFileWriter.moveIntoPlace(temp, target);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Could not write the region cache " + file, e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.log(Level.FINE, "Could not delete " + temp, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * <p>RetryProperty class.</p>
+ * <p>
+ * Retries and the circuit breaker of the S3 client. Both keep the SDK defaults unless configured.
+ * The adaptive retry mode backs off with jitter, spends retries from a token bucket and slows the
+ * whole client down while S3 answers with throttling errors, so parallel builds sharing the client
+ * do not retry in lockstep. The circuit breaker fails requests right away for the cooldown once
+ * the given number of requests in a row failed because the endpoint was unreachable or answered
+ * with a server error other than throttling.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+public class RetryProperty {
+
+    private static final String MODE_PROP = "S3_RETRY_MODE";
+    private static final String MAX_RETRIES_PROP = "S3_MAX_RETRIES";
+    private static final String CIRCUIT_BREAKER_THRESHOLD_PROP = "S3_CIRCUIT_BREAKER_THRESHOLD";
+    private static final String CIRCUIT_BREAKER_COOLDOWN_PROP = "S3_CIRCUIT_BREAKER_COOLDOWN";
+
+    static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 0;
+    static final long DEFAULT_CIRCUIT_BREAKER_COOLDOWN_SECONDS = 30;
+
+    private final String mode;
+    private final String maxRetries;
+    private final String circuitBreakerThreshold;
+    private final String circuitBreakerCooldown;
+
+    /**
+     * <p>Constructor for RetryProperty.</p>
+     *
+     * @param mode                    a {@link java.lang.String} object, {@code adaptive}, {@code standard} or {@code legacy}.
+     * @param maxRetries              a {@link java.lang.String} object, retries of a request after the first attempt.
+     * @param circuitBreakerThreshold a {@link java.lang.String} object, failed requests in a row that open the circuit, {@code 0} disables it.
+     * @param circuitBreakerCooldown  a {@link java.lang.String} object, seconds the circuit stays open.
+     */
+    public RetryProperty(String mode, String maxRetries, String circuitBreakerThreshold, String circuitBreakerCooldown) {
+        this.mode = mode;
+        this.maxRetries = maxRetries;
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+        this.circuitBreakerCooldown = circuitBreakerCooldown;
+    }
+
+    /**
+     * <p>empty.</p>
+     *
+     * @return a {@link com.ehsaniara.s3.RetryProperty} object with the system properties or the defaults.
+     */
+    public static RetryProperty empty() {
+        return new RetryProperty(null, null, null, null);
+    }
+
+    /**
+     * <p>getMode.</p>
+     *
+     * @return a {@link software.amazon.awssdk.core.retry.RetryMode} object, null to keep the SDK default.
+     */
+    public RetryMode getMode() {
+        String value = value(mode, MODE_PROP);
+        return value == null ? null : RetryMode.valueOf(value.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * <p>getMaxRetries.</p>
+     *
+     * @return a {@link java.lang.Integer} object, null to keep the default of the retry mode.
+     */
+    public Integer getMaxRetries() {
+        String value = value(maxRetries, MAX_RETRIES_PROP);
+        return value == null ? null : Math.max(0, Integer.parseInt(value));
+    }
+
+    /**
+     * <p>getCircuitBreakerThreshold.</p>
+     *
+     * @return the number of failed requests in a row that open the circuit, 0 if it is disabled.
+     */
+    public int getCircuitBreakerThreshold() {
+        String value = value(circuitBreakerThreshold, CIRCUIT_BREAKER_THRESHOLD_PROP);
+        return value == null ? DEFAULT_CIRCUIT_BREAKER_THRESHOLD : Math.max(0, Integer.parseInt(value));
+    }
+
+    /**
+     * <p>getCircuitBreakerCooldown.</p>
+     *
+     * @return a {@link java.time.Duration} object, the time the circuit stays open.
+     */
+    public Duration getCircuitBreakerCooldown() {
+        String value = value(circuitBreakerCooldown, CIRCUIT_BREAKER_COOLDOWN_PROP);
+        return Duration.ofSeconds(value == null ? DEFAULT_CIRCUIT_BREAKER_COOLDOWN_SECONDS : Math.max(0, Long.parseLong(value)));
+    }
+
+    /**
+     * <p>retryPolicy.</p>
+     *
+     * @return a {@link software.amazon.awssdk.core.retry.RetryPolicy} object for the client, null to keep the SDK default.
+     */
+    public RetryPolicy retryPolicy() {
+        RetryMode retryMode = getMode();
+        Integer retries = getMaxRetries();
+        if (retries == null) {
+            return retryMode == null ? null : RetryPolicy.forRetryMode(retryMode);
+        }
+        return (retryMode == null ? RetryPolicy.builder() : RetryPolicy.builder(retryMode)).numRetries(retries).build();
+    }
+
+    /**
+     * <p>key.</p>
+     *
+     * @return a {@link java.lang.String} object identifying the effective settings.
+     */
+    public String key() {
+        return getMode() + "," + getMaxRetries() + "," + getCircuitBreakerThreshold() + "," + getCircuitBreakerCooldown();
+    }
+
+    private static String value(String configured, String systemProperty) {
+        String value = configured != null ? configured : System.getProperty(systemProperty);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+}
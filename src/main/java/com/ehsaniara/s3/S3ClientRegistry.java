@@ -0,0 +1,279 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>S3ClientRegistry class.</p>
+ * <p>
+ * Maven looks up a new wagon for every repository access, so clients are shared JVM wide instead
+ * of being built and closed by every wagon. Clients are keyed by the connection settings,
+ * reference counted and closed once they have not been used for the idle timeout, which keeps the
+ * pooled connections warm for the whole reactor build.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public final class S3ClientRegistry {
+
+    private static final String IDLE_TIMEOUT_PROP = "S3_CLIENT_IDLE_TIMEOUT";
+    static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 60;
+
+    private static final Map<String, Entry> CLIENTS = new HashMap<>();
+    private static final ScheduledExecutorService REAPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "s3-client-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private S3ClientRegistry() {
+    }
+
+    /**
+     * Returns a lease on the shared client for the given settings, creating the client if needed.
+     *
+     * @param authenticationInfo a {@link org.apache.maven.wagon.authentication.AuthenticationInfo} object.
+     * @param region             a {@link java.lang.String} object.
+     * @param endpoint           a {@link com.ehsaniara.s3.EndpointProperty} object.
+     * @param pathStyle          a {@link com.ehsaniara.s3.PathStyleEnabledProperty} object.
+     * @param profile            a {@link java.lang.String} object.
+     * @param http               a {@link com.ehsaniara.s3.HttpTransportProperty} object.
+     * @return a {@link com.ehsaniara.s3.S3ClientRegistry.Lease} object, to be closed when the client is no longer used.
+     * @throws org.apache.maven.wagon.authentication.AuthenticationException if any.
+     */
+    public static Lease acquire(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile, HttpTransportProperty http) throws AuthenticationException {
+        return acquire(authenticationInfo, region, endpoint, pathStyle, profile, http, RetryProperty.empty());
+    }
+
+    /**
+     * Returns a lease on the shared client for the given settings, creating the client if needed.
+     *
+     * @param authenticationInfo a {@link org.apache.maven.wagon.authentication.AuthenticationInfo} object.
+     * @param region             a {@link java.lang.String} object.
+     * @param endpoint           a {@link com.ehsaniara.s3.EndpointProperty} object.
+     * @param pathStyle          a {@link com.ehsaniara.s3.PathStyleEnabledProperty} object.
+     * @param profile            a {@link java.lang.String} object.
+     * @param http               a {@link com.ehsaniara.s3.HttpTransportProperty} object.
+     * @param retry              a {@link com.ehsaniara.s3.RetryProperty} object.
+     * @return a {@link com.ehsaniara.s3.S3ClientRegistry.Lease} object, to be closed when the client is no longer used.
+     * @throws org.apache.maven.wagon.authentication.AuthenticationException if any.
+     */
+    public static Lease acquire(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile, HttpTransportProperty http, RetryProperty retry) throws AuthenticationException {
+        final String key = key(authenticationInfo, region, endpoint, pathStyle, profile) + '|' + http.key() + '|' + retry.key();
+        return acquire(key, () -> S3Connect.connect(authenticationInfo, region, endpoint, pathStyle, profile, http, retry));
+    }
+
+    /**
+     * Returns a lease on the shared asynchronous client for the given settings, creating the client if needed.
+     *
+     * @param authenticationInfo a {@link org.apache.maven.wagon.authentication.AuthenticationInfo} object.
+     * @param region             a {@link java.lang.String} object.
+     * @param endpoint           a {@link com.ehsaniara.s3.EndpointProperty} object.
+     * @param pathStyle          a {@link com.ehsaniara.s3.PathStyleEnabledProperty} object.
+     * @param profile            a {@link java.lang.String} object.
+     * @param multipart          a {@link com.ehsaniara.s3.MultipartUploadProperty} object.
+     * @param retry              a {@link com.ehsaniara.s3.RetryProperty} object.
+     * @return a {@link com.ehsaniara.s3.S3ClientRegistry.Lease} object, to be closed when the client is no longer used.
+     * @throws org.apache.maven.wagon.authentication.AuthenticationException if any.
+     */
+    public static Lease acquireAsync(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile, MultipartUploadProperty multipart, RetryProperty retry) throws AuthenticationException {
+        final String key = "async|" + key(authenticationInfo, region, endpoint, pathStyle, profile) + '|' + multipart.key() + '|' + retry.key();
+        return acquire(key, () -> S3Connect.connectAsync(authenticationInfo, region, endpoint, pathStyle, profile, multipart, retry));
+    }
+
+    static Lease acquire(String key, Connector connector) throws AuthenticationException {
+        final Entry entry;
+        final boolean connecting;
+        synchronized (CLIENTS) {
+            Entry existing = CLIENTS.get(key);
+            connecting = existing == null;
+            if (connecting) {
+                entry = new Entry(key);
+                CLIENTS.put(key, entry);
+            } else {
+                entry = existing;
+                log.finer("Reusing shared S3 client instance.");
+            }
+            if (entry.closeTask != null) {
+                entry.closeTask.cancel(false);
+                entry.closeTask = null;
+            }
+            entry.references++;
+        }
+
+        // the client is built outside the lock, callers for the same settings wait for the same client
+        if (connecting) {
+            try {
+                entry.client.complete(connector.connect());
+            } catch (Throwable e) {
+                synchronized (CLIENTS) {
+                    CLIENTS.remove(key, entry);
+                }
+                entry.client.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            entry.client.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AuthenticationException) {
+                throw (AuthenticationException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+        return new Lease(entry);
+    }
+
+    private static void release(Entry entry) {
+        synchronized (CLIENTS) {
+            if (--entry.references > 0) {
+                return;
+            }
+            long idleTimeout = getIdleTimeoutSeconds();
+            if (idleTimeout == 0) {
+                close(entry);
+            } else {
+                entry.closeTask = REAPER.schedule(() -> {
+                    synchronized (CLIENTS) {
+                        if (entry.references == 0) {
+                            close(entry);
+                        }
+                    }
+                }, idleTimeout, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private static void close(Entry entry) {
+        if (CLIENTS.get(entry.key) == entry) {
+            CLIENTS.remove(entry.key);
+        }
+        log.fine("Closing idle S3 client instance.");
+        entry.client.join().close();
+    }
+
+    private static long getIdleTimeoutSeconds() {
+        return Math.max(0, Long.getLong(IDLE_TIMEOUT_PROP, DEFAULT_IDLE_TIMEOUT_SECONDS));
+    }
+
+    static String key(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile) {
+        StringBuilder key = new StringBuilder()
+                .append(region).append('|')
+                .append(endpoint.isPresent() ? endpoint.get() : "").append('|')
+                .append(pathStyle.get()).append('|')
+                .append(profile).append('|');
+        if (authenticationInfo != null) {
+            // the secret itself is not kept in the key
+            key.append(authenticationInfo.getUserName()).append('|')
+                    .append(authenticationInfo.getPassword() == null ? "" : Digests.sha1(authenticationInfo.getPassword()));
+        }
+        return key.toString();
+    }
+
+    interface Connector {
+        SdkAutoCloseable connect() throws AuthenticationException;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final CompletableFuture<SdkAutoCloseable> client = new CompletableFuture<>();
+        private int references;
+        private boolean warmedUp;
+        private ScheduledFuture<?> closeTask;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * A reference to a shared client, closing it releases the reference but keeps the client open
+     * for other wagons until the idle timeout has passed.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private Entry entry;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * <p>getClient.</p>
+         *
+         * @return a {@link software.amazon.awssdk.services.s3.S3Client} object.
+         */
+        public S3Client getClient() {
+            return (S3Client) entry.client.join();
+        }
+
+        /**
+         * <p>getAsyncClient.</p>
+         *
+         * @return a {@link software.amazon.awssdk.services.s3.S3AsyncClient} object, for leases from {@link #acquireAsync}.
+         */
+        public S3AsyncClient getAsyncClient() {
+            return (S3AsyncClient) entry.client.join();
+        }
+
+        /**
+         * <p>claimWarmUp.</p>
+         *
+         * @return true for the first lease that asks, which then warms up the pooled connections of the client.
+         */
+        public boolean claimWarmUp() {
+            synchronized (CLIENTS) {
+                if (entry.warmedUp) {
+                    return false;
+                }
+                entry.warmedUp = true;
+                return true;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (entry != null) {
+                release(entry);
+                entry = null;
+            }
+        }
+    }
+}
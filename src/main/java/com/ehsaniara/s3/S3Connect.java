@@ -17,15 +17,27 @@
 package com.ehsaniara.s3;
 
 import lombok.extern.java.Log;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
 import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.http.SystemPropertyTlsKeyManagersProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.S3BaseClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.S3Configuration;
 
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.net.Socket;
 import java.net.URI;
+import java.security.GeneralSecurityException;
 
 /**
  * S3Connect s3Connect
@@ -48,9 +60,42 @@ public class S3Connect {
      * @throws org.apache.maven.wagon.authentication.AuthenticationException org.apache.maven.wagon.authentication.AuthenticationException
      */
     public static S3Client connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile) throws AuthenticationException {
+        return connect(authenticationInfo, region, endpoint, pathStyle, profile, HttpTransportProperty.empty());
+    }
+
+    /**
+     * <p>connect.</p>
+     *
+     * @param authenticationInfo authenticationInfo
+     * @param region             region
+     * @param endpoint           endpoint
+     * @param pathStyle          pathStyle
+     * @param profile            AWS named profile
+     * @param http               HTTP client tuning
+     * @return S3Client
+     * @throws org.apache.maven.wagon.authentication.AuthenticationException org.apache.maven.wagon.authentication.AuthenticationException
+     */
+    public static S3Client connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile, HttpTransportProperty http) throws AuthenticationException {
+        return connect(authenticationInfo, region, endpoint, pathStyle, profile, http, RetryProperty.empty());
+    }
+
+    /**
+     * <p>connect.</p>
+     *
+     * @param authenticationInfo authenticationInfo
+     * @param region             region
+     * @param endpoint           endpoint
+     * @param pathStyle          pathStyle
+     * @param profile            AWS named profile
+     * @param http               HTTP client tuning
+     * @param retry              retry mode and circuit breaker
+     * @return S3Client
+     * @throws org.apache.maven.wagon.authentication.AuthenticationException org.apache.maven.wagon.authentication.AuthenticationException
+     */
+    public static S3Client connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile, HttpTransportProperty http, RetryProperty retry) throws AuthenticationException {
 
         try {
-            S3Client s3Client = createS3Client(authenticationInfo, region, endpoint, pathStyle, profile);
+            S3Client s3Client = createS3Client(authenticationInfo, region, endpoint, pathStyle, profile, http, retry);
 
             log.finer(String.format("Connected to S3 using endpoint %s.", endpoint.isPresent() ? endpoint.get() : "default"));
 
@@ -74,20 +119,66 @@ public class S3Connect {
      * @param endpoint           endpoint
      * @param pathStyle          pathStyle
      * @param profile            AWS named profile
+     * @param http               HTTP client tuning
+     * @param retry              retry mode and circuit breaker
      * @return S3Client
      */
-    private static S3Client createS3Client(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile) {
-        final S3RegionProviderOrder regionProvider = new S3RegionProviderOrder(region);
-
+    private static S3Client createS3Client(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile, HttpTransportProperty http, RetryProperty retry) {
         log.fine("Creating new S3Client instance.");
 
+        S3ClientBuilder builder = S3Client.builder()
+                .httpClientBuilder(createHttpClient(http));
+
+        return configure(builder, authenticationInfo, region, endpoint, pathStyle, profile, retry).build();
+    }
+
+    /**
+     * <p>connectAsync.</p>
+     *
+     * @param authenticationInfo authenticationInfo
+     * @param region             region
+     * @param endpoint           endpoint
+     * @param pathStyle          pathStyle
+     * @param profile            AWS named profile
+     * @param multipart          threshold and part size of the SDK managed multipart uploads
+     * @param retry              retry mode and circuit breaker
+     * @return S3AsyncClient
+     * @throws org.apache.maven.wagon.authentication.AuthenticationException org.apache.maven.wagon.authentication.AuthenticationException
+     */
+    public static S3AsyncClient connectAsync(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile, MultipartUploadProperty multipart, RetryProperty retry) throws AuthenticationException {
+        log.fine("Creating new S3AsyncClient instance.");
+
+        try {
+            S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                    .multipartEnabled(true)
+                    .multipartConfiguration(configuration -> configuration
+                            .thresholdInBytes(multipart.getThreshold())
+                            .minimumPartSizeInBytes(multipart.getPartSize(multipart.getThreshold())));
+
+            return configure(builder, authenticationInfo, region, endpoint, pathStyle, profile, retry).build();
+        } catch (SdkClientException e) {
+            throw new AuthenticationException("Failed to connect the asynchronous client", e);
+        }
+    }
+
+    private static <B extends S3BaseClientBuilder<B, ?>> B configure(B builder, AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile, RetryProperty retry) {
+        final S3RegionProviderOrder regionProvider = new S3RegionProviderOrder(region);
+
         S3Configuration s3Config = S3Configuration.builder()
                 .pathStyleAccessEnabled(pathStyle.get())
                 .build();
 
-        S3ClientBuilder builder = S3Client.builder()
-                .credentialsProvider(new AwsCredentialsFactory().connect(authenticationInfo, profile))
-                .serviceConfiguration(s3Config);
+        builder.credentialsProvider(AwsCredentialsFactory.forClient(authenticationInfo, profile))
+                .serviceConfiguration(s3Config)
+                .overrideConfiguration(configuration -> {
+                    RetryPolicy retryPolicy = retry.retryPolicy();
+                    if (retryPolicy != null) {
+                        configuration.retryPolicy(retryPolicy);
+                    }
+                    if (retry.getCircuitBreakerThreshold() > 0) {
+                        configuration.addExecutionInterceptor(new CircuitBreaker(retry.getCircuitBreakerThreshold(), retry.getCircuitBreakerCooldown()));
+                    }
+                });
 
         String regionId = regionProvider.getRegionString();
         if (regionId != null) {
@@ -101,6 +192,76 @@ public class S3Connect {
             builder.endpointOverride(URI.create(endpoint.get()));
         }
 
-        return builder.build();
+        return builder;
+    }
+
+    private static ApacheHttpClient.Builder createHttpClient(HttpTransportProperty http) {
+        ApacheHttpClient.Builder builder = ApacheHttpClient.builder();
+
+        if (http.getMaxConnections() != null) {
+            builder.maxConnections(http.getMaxConnections());
+        }
+        if (http.getConnectionTtl() != null) {
+            builder.connectionTimeToLive(http.getConnectionTtl());
+        }
+        if (http.getConnectionMaxIdleTime() != null) {
+            builder.connectionMaxIdleTime(http.getConnectionMaxIdleTime())
+                    .useIdleConnectionReaper(true);
+        }
+        if (http.getTcpKeepAlive() != null) {
+            builder.tcpKeepAlive(http.getTcpKeepAlive());
+        }
+        if (http.getExpectContinue() != null) {
+            builder.expectContinueEnabled(http.getExpectContinue());
+        }
+        if (http.getConnectionAcquisitionTimeout() != null) {
+            builder.connectionAcquisitionTimeout(http.getConnectionAcquisitionTimeout());
+        }
+        if (http.getSocketSendBufferSize() > 0 || http.getSocketReceiveBufferSize() > 0) {
+            builder.socketFactory(new BufferSizeSocketFactory(http.getSocketSendBufferSize(), http.getSocketReceiveBufferSize()));
+        }
+
+        return builder;
+    }
+
+    /**
+     * Sets the socket buffer sizes before the socket is connected, so the receive buffer is also
+     * taken into account for the TCP window scaling negotiated in the handshake. The SDK does not
+     * expose its socket configuration, so this replaces its socket factory with one using the same
+     * TLS setup: a TLS context with the key managers of the {@code javax.net.ssl} system properties,
+     * the default trust managers and the default hostname verification.
+     */
+    private static final class BufferSizeSocketFactory extends SSLConnectionSocketFactory {
+
+        private final int sendBufferSize;
+        private final int receiveBufferSize;
+
+        BufferSizeSocketFactory(int sendBufferSize, int receiveBufferSize) {
+            super(sslContext(), SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+            this.sendBufferSize = sendBufferSize;
+            this.receiveBufferSize = receiveBufferSize;
+        }
+
+        @Override
+        public Socket createSocket(HttpContext context) throws IOException {
+            Socket socket = super.createSocket(context);
+            if (sendBufferSize > 0) {
+                socket.setSendBufferSize(sendBufferSize);
+            }
+            if (receiveBufferSize > 0) {
+                socket.setReceiveBufferSize(receiveBufferSize);
+            }
+            return socket;
+        }
+
+        private static SSLContext sslContext() {
+            try {
+                SSLContext sslContext = SSLContext.getInstance("TLS");
+                sslContext.init(SystemPropertyTlsKeyManagersProvider.create().keyManagers(), null, null);
+                return sslContext;
+            } catch (GeneralSecurityException e) {
+                throw SdkClientException.create("Could not initialize the TLS context", e);
+            }
+        }
     }
 }
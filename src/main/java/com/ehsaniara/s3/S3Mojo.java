@@ -23,18 +23,20 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Object;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * <p>S3Mojo class.</p>
@@ -60,7 +62,59 @@ public class S3Mojo extends AbstractMojo {
     @Parameter(property = "s3-download.profile")
     private String profile;
 
-    private static final String DIRECTORY_CONTENT_TYPE = "application/x-directory";
+    @Parameter(property = "s3-download.downloadThreads", defaultValue = "16")
+    private int downloadThreads = DEFAULT_DOWNLOAD_THREADS;
+
+    @Parameter(property = "s3-download.writerThreads", defaultValue = "4")
+    private int writerThreads = DEFAULT_WRITER_THREADS;
+
+    @Parameter(property = "s3-download.maxKeys", defaultValue = "1000")
+    private int maxKeys = PrefixObjectsIterator.DEFAULT_MAX_KEYS;
+
+    @Parameter(property = "s3-download.listParallelism", defaultValue = "1")
+    private int listParallelism = DEFAULT_LIST_PARALLELISM;
+
+    @Parameter(property = "s3-download.startAfter")
+    private String startAfter;
+
+    @Parameter(property = "s3-download.sync", defaultValue = "false")
+    private boolean sync;
+
+    @Parameter(property = "s3-download.mirror", defaultValue = "false")
+    private boolean mirror;
+
+    @Parameter(property = "s3-download.syncStateFile")
+    private File syncStateFile;
+
+    @Parameter(property = "s3-download.httpMaxConnections")
+    private String httpMaxConnections;
+
+    @Parameter(property = "s3-download.httpConnectionTtl")
+    private String httpConnectionTtl;
+
+    @Parameter(property = "s3-download.httpConnectionMaxIdleTime")
+    private String httpConnectionMaxIdleTime;
+
+    @Parameter(property = "s3-download.httpTcpKeepAlive")
+    private String httpTcpKeepAlive;
+
+    @Parameter(property = "s3-download.httpSocketSendBufferSize")
+    private String httpSocketSendBufferSize;
+
+    @Parameter(property = "s3-download.httpSocketReceiveBufferSize")
+    private String httpSocketReceiveBufferSize;
+
+    @Parameter(property = "s3-download.httpExpectContinue")
+    private String httpExpectContinue;
+
+    @Parameter(property = "s3-download.httpConnectionAcquisitionTimeout")
+    private String httpConnectionAcquisitionTimeout;
+
+    private static final int DEFAULT_DOWNLOAD_THREADS = 16;
+
+    private static final int DEFAULT_WRITER_THREADS = 4;
+
+    private static final int DEFAULT_LIST_PARALLELISM = 1;
 
     private static final Logger LOGGER = Logger.getLogger(S3Mojo.class.getName());
 
@@ -94,7 +148,12 @@ public class S3Mojo extends AbstractMojo {
 
         try {
             // Path style access is disabled by default in SDK v2
-            s3Client = S3Connect.connect(null, region, EndpointProperty.empty(), new PathStyleEnabledProperty("false"), profile);
+            HttpTransportProperty http = new HttpTransportProperty(httpMaxConnections, httpConnectionTtl, httpConnectionMaxIdleTime,
+                    httpTcpKeepAlive, httpSocketSendBufferSize, httpSocketReceiveBufferSize, httpExpectContinue, httpConnectionAcquisitionTimeout);
+            s3Client = S3Connect.connect(null, RegionCache.resolve(bucket, region), EndpointProperty.empty(), new PathStyleEnabledProperty("false"), profile, http);
+            if (region == null || region.isEmpty()) {
+                RegionCache.learn(bucket, s3Client);
+            }
         } catch (AuthenticationException e) {
             throw new MojoExecutionException(
                     String.format("Unable to authenticate to S3 with the available credentials. Make sure to either define the environment variables or System properties defined in https://docs.aws.amazon.com/sdk-for-java/latest/developer-guide/credentials.html.%n" +
@@ -108,48 +167,92 @@ public class S3Mojo extends AbstractMojo {
                 return;
             }
 
-            List<Iterator<String>> prefixKeysIterators = keys.stream()
-                    .map(pi -> new PrefixKeysIterator(s3Client, bucket, pi))
-                    .collect(Collectors.toList());
-            Iterator<String> keyIteratorConcatenated = new KeyIteratorConcatenated<>(prefixKeysIterators);
-
-            while (keyIteratorConcatenated.hasNext()) {
-
-                String key = keyIteratorConcatenated.next();
-                downloadFile(s3Client, key);
+            // mirroring relies on the listing recorded by the sync state
+            SyncState syncState = sync || mirror
+                    ? new SyncState(new File(downloadPath), syncStateFile != null ? syncStateFile : new File(downloadPath, SyncState.DEFAULT_FILE_NAME))
+                    : null;
+
+            List<PartitionedListing> listings = new ArrayList<>();
+            try {
+                for (String prefix : keys) {
+                    listings.add(new PartitionedListing(s3Client, bucket, prefix, listParallelism, maxKeys, startAfter));
+                }
+                Iterator<S3Object> objects = new KeyIteratorConcatenated<>(new ArrayList<Iterator<S3Object>>(listings));
+                Iterator<String> keyIteratorConcatenated = syncState != null ? syncState.changedKeys(objects) : keysOf(objects);
+
+                BulkDownload.Result result;
+                try {
+                    BulkDownload bulkDownload = new BulkDownload(s3Client, bucket, downloadPath, downloadThreads, writerThreads);
+                    if (syncState != null) {
+                        bulkDownload.setListener(syncState::written);
+                    }
+                    result = bulkDownload.download(keyIteratorConcatenated);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while downloading from s3", e);
+                }
+
+                LOGGER.info(String.format("Downloaded %d objects (%d bytes) in %.1f s, %.2f MB/s",
+                        result.getObjects(), result.getBytes(), result.getElapsedNanos() / 1e9, result.getMegabytesPerSecond()));
+
+                if (syncState != null) {
+                    finishSync(syncState, result);
+                }
+
+                if (!result.getFailures().isEmpty()) {
+                    for (Exception failure : result.getFailures()) {
+                        LOGGER.log(Level.SEVERE, failure.getMessage(), failure);
+                    }
+                    MojoExecutionException exception = new MojoExecutionException(String.format("Could not download %d of %d objects",
+                            result.getFailures().size(), result.getKeys()), result.getFailures().get(0));
+                    result.getFailures().stream().skip(1).forEach(exception::addSuppressed);
+                    throw exception;
+                }
+            } catch (SdkException e) {
+                throw new MojoExecutionException("Could not list the objects to download from s3", e);
+            } finally {
+                listings.forEach(PartitionedListing::close);
             }
         } finally {
             s3Client.close();
         }
     }
 
-    private void downloadSingleFile(S3Client s3Client, String key) {
-        File file = new File(downloadPath);
-
-        if (file.getParentFile() != null) {
-            file.getParentFile().mkdirs();
-        }
+    private static Iterator<String> keysOf(final Iterator<S3Object> objects) {
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return objects.hasNext();
+            }
 
-        GetObjectRequest request = GetObjectRequest.builder()
-                .bucket(bucket)
-                .key(key)
-                .build();
+            @Override
+            public String next() {
+                return objects.next().key();
+            }
+        };
+    }
 
-        try (ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(request);
-             FileOutputStream fileOutputStream = new FileOutputStream(file)
-        ) {
-            IOUtils.copy(s3Object, fileOutputStream);
+    private void finishSync(SyncState syncState, BulkDownload.Result result) throws MojoExecutionException {
+        try {
+            // an incomplete listing must not forget, or delete, anything
+            if (result.getFailures().isEmpty() && startAfter == null) {
+                if (mirror) {
+                    int deleted = syncState.deleteUnlisted();
+                    LOGGER.info(String.format("Deleted %d local files whose keys no longer exist", deleted));
+                }
+                syncState.retainListed();
+            }
+            syncState.save();
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Could not download s3 file");
-            e.printStackTrace();
+            throw new MojoExecutionException("Could not update the sync state of " + downloadPath, e);
         }
+        LOGGER.info(String.format("Skipped %d unchanged objects", syncState.getUnchanged()));
     }
 
-    private void downloadFile(S3Client s3Client, String key) {
-
-        File file = new File(createFullFilePath(key));
+    private void downloadSingleFile(S3Client s3Client, String key) throws MojoExecutionException {
+        File file = new File(downloadPath);
 
-        if (file.getParent() != null) {
+        if (file.getParentFile() != null) {
             file.getParentFile().mkdirs();
         }
 
@@ -158,29 +261,12 @@ public class S3Mojo extends AbstractMojo {
                 .key(key)
                 .build();
 
-        try (ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(request)) {
-            if (isDirectory(s3Object.response())) {
-                return;
-            }
-
-            try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
-                IOUtils.copy(s3Object, fileOutputStream);
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Could not download s3 file");
-            e.printStackTrace();
+        try (ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(request);
+             FileOutputStream fileOutputStream = new FileOutputStream(file)
+        ) {
+            IOUtils.copy(s3Object, fileOutputStream);
+        } catch (IOException | SdkException e) {
+            throw new MojoExecutionException("Could not download " + key, e);
         }
     }
-
-    private String createFullFilePath(String key) {
-
-        String fullPath = downloadPath + "/" + key;
-        return fullPath;
-    }
-
-    private boolean isDirectory(GetObjectResponse response) {
-        return DIRECTORY_CONTENT_TYPE.equals(response.contentType());
-    }
-
-
 }
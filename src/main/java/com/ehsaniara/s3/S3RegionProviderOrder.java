@@ -16,16 +16,25 @@
 
 package com.ehsaniara.s3;
 
+import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.regions.providers.AwsProfileRegionProvider;
+import software.amazon.awssdk.regions.providers.AwsRegionProviderChain;
 import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
 import software.amazon.awssdk.regions.providers.AwsRegionProvider;
+import software.amazon.awssdk.regions.providers.SystemSettingsRegionProvider;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Custom region provider chain that prioritizes Maven settings,
  * then falls back to AWS SDK's default resolution order.
+ * <p>
+ * The default resolution runs once per JVM, it may probe the EC2 instance metadata with timeouts.
+ * Without the instance metadata (see {@link com.ehsaniara.s3.InstanceMetadataProperty}) only the
+ * system settings and the AWS profile are consulted.
  *
  * @author jay
  * @version $Id: $Id
@@ -43,7 +52,7 @@ public class S3RegionProviderOrder implements AwsRegionProvider {
         this.providers = Arrays.asList(
                 new MavenSettingsRegionProvider(providedRegion),
                 new AwsDefaultEnvRegionProvider(),
-                DefaultAwsRegionProviderChain.builder().build()
+                new DefaultChainRegionProvider()
         );
     }
 
@@ -72,4 +81,35 @@ public class S3RegionProviderOrder implements AwsRegionProvider {
         Region region = getRegion();
         return region != null ? region.id() : null;
     }
+
+    private static final class DefaultChainRegionProvider implements AwsRegionProvider {
+
+        private static volatile Optional<Region> resolved;
+
+        @Override
+        public Region getRegion() {
+            Optional<Region> region = resolved;
+            if (region == null) {
+                synchronized (DefaultChainRegionProvider.class) {
+                    region = resolved;
+                    if (region == null) {
+                        region = resolve();
+                        resolved = region;
+                    }
+                }
+            }
+            return region.orElse(null);
+        }
+
+        private static Optional<Region> resolve() {
+            AwsRegionProvider chain = InstanceMetadataProperty.empty().isEnabled()
+                    ? DefaultAwsRegionProviderChain.builder().build()
+                    : new AwsRegionProviderChain(new SystemSettingsRegionProvider(), new AwsProfileRegionProvider());
+            try {
+                return Optional.ofNullable(chain.getRegion());
+            } catch (SdkClientException e) {
+                return Optional.empty();
+            }
+        }
+    }
 }
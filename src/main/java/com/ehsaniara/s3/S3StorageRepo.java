@@ -17,6 +17,7 @@
 package com.ehsaniara.s3;
 
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.java.Log;
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
@@ -24,6 +25,8 @@ import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
@@ -31,17 +34,24 @@ import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 /**
@@ -58,10 +68,36 @@ public class S3StorageRepo {
     @Getter
     private final String baseDirectory;
 
+    private static final int HTTP_NOT_MODIFIED = 304;
+    private static final long MAX_STREAM_BUFFER_SIZE = 16 * ByteSize.MB;
+    // shared by all wagon instances, Maven looks up a new wagon for every repository access
+    private static final ETagRegistry E_TAGS = new ETagRegistry(10000);
+
     private final KeyResolver keyResolver = new KeyResolver();
 
     private S3Client s3Client;
+    private S3ClientRegistry.Lease clientLease;
+    private S3ClientRegistry.Lease asyncClientLease;
     private PublicReadProperty publicReadProperty;
+    @Setter
+    private MultipartUploadProperty multipartUploadProperty = MultipartUploadProperty.empty();
+    @Setter
+    private RangedDownloadProperty rangedDownloadProperty = RangedDownloadProperty.empty();
+    private ArtifactCache artifactCache;
+    @Setter
+    private MetadataCache metadataCache = MetadataCache.disabled();
+    @Setter
+    private HttpTransportProperty httpTransportProperty = HttpTransportProperty.empty();
+    @Getter
+    @Setter
+    private AsyncEngineProperty asyncEngineProperty = AsyncEngineProperty.empty();
+    @Setter
+    private RetryProperty retryProperty = RetryProperty.empty();
+    private HedgedRequests hedgedGets;
+    private HedgedRequests hedgedHeads;
+    @Setter
+    private int warmUpConnections;
+    private AsyncTransferEngine asyncEngine;
 
     /**
      * <p>Constructor for S3StorageRepo.</p>
@@ -87,7 +123,48 @@ public class S3StorageRepo {
      * @throws org.apache.maven.wagon.authentication.AuthenticationException if any.
      */
     public void connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, String profile) throws AuthenticationException {
-        this.s3Client = S3Connect.connect(authenticationInfo, region, endpoint, pathStyle, profile);
+        String bucketRegion = RegionCache.resolve(bucket, region);
+        this.clientLease = S3ClientRegistry.acquire(authenticationInfo, bucketRegion, endpoint, pathStyle, profile, httpTransportProperty, retryProperty);
+        this.s3Client = clientLease.getClient();
+        if (region == null || region.isEmpty()) {
+            RegionCache.learn(bucket, s3Client);
+        }
+        if (warmUpConnections > 0 && clientLease.claimWarmUp()) {
+            Integer maxConnections = httpTransportProperty.getMaxConnections();
+            ConnectionWarmer.warmUp(s3Client, bucket, maxConnections != null ? Math.min(warmUpConnections, maxConnections) : warmUpConnections);
+        }
+        if (asyncEngineProperty.isEnabled()) {
+            this.asyncClientLease = S3ClientRegistry.acquireAsync(authenticationInfo, bucketRegion, endpoint, pathStyle, profile, multipartUploadProperty, retryProperty);
+            this.asyncEngine = new AsyncTransferEngine(asyncClientLease.getAsyncClient(), bucket);
+        }
+    }
+
+    /**
+     * <p>isAsync.</p>
+     *
+     * @return true if transfers run on the asynchronous engine.
+     */
+    public boolean isAsync() {
+        return asyncEngine != null;
+    }
+
+    /**
+     * <p>setArtifactCacheProperty.</p>
+     *
+     * @param artifactCacheProperty a {@link com.ehsaniara.s3.ArtifactCacheProperty} object.
+     */
+    public void setArtifactCacheProperty(ArtifactCacheProperty artifactCacheProperty) {
+        this.artifactCache = artifactCacheProperty.isEnabled() ? new ArtifactCache(artifactCacheProperty) : null;
+    }
+
+    /**
+     * <p>setHedgingProperty.</p>
+     *
+     * @param hedgingProperty a {@link com.ehsaniara.s3.HedgingProperty} object.
+     */
+    public void setHedgingProperty(HedgingProperty hedgingProperty) {
+        this.hedgedGets = hedgingProperty.isEnabled() ? HedgedRequests.shared(bucket + "|GET", hedgingProperty) : null;
+        this.hedgedHeads = hedgingProperty.isEnabled() ? HedgedRequests.shared(bucket + "|HEAD", hedgingProperty) : null;
     }
 
     /**
@@ -103,28 +180,252 @@ public class S3StorageRepo {
 
         final String key = resolveKey(resourceName);
 
+        GetObjectRequest getRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+
+        if (artifactCache != null) {
+            copyThroughCache(key, destination, progress);
+            return;
+        }
+
+        download(getRequest, destination, progress, null);
+    }
+
+    /**
+     * Downloads the resource with a single conditional GET if it changed since the given time, or
+     * since the ETag remembered for the local copy.
+     *
+     * @param resourceName a {@link java.lang.String} object.
+     * @param destination a {@link java.io.File} object.
+     * @param timeStamp the last modification time of the local copy, 0 if unknown.
+     * @param progress a {@link com.ehsaniara.s3.Progress} object.
+     * @param transferStarted called once the response is there and the body is about to be written.
+     * @return true if the resource was newer and has been downloaded, false on 304 Not Modified.
+     * @throws org.apache.maven.wagon.TransferFailedException if any.
+     * @throws org.apache.maven.wagon.ResourceDoesNotExistException if any.
+     */
+    public boolean copyIfNewer(String resourceName, File destination, long timeStamp, Progress progress, Runnable transferStarted) throws TransferFailedException, ResourceDoesNotExistException {
+
+        final String key = resolveKey(resourceName);
+
+        if (isKnownNotNewer(key, timeStamp)) {
+            return false;
+        }
+
+        GetObjectRequest.Builder getRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key);
+        if (timeStamp > 0) {
+            getRequest.ifModifiedSince(Instant.ofEpochMilli(timeStamp));
+        }
+        String eTag = E_TAGS.lookup(bucket, key, destination);
+        if (eTag != null) {
+            getRequest.ifNoneMatch(eTag);
+        }
+
+        return download(getRequest.build(), destination, progress, transferStarted);
+    }
+
+    /**
+     * Streams the resource into the output stream without a temporary file.
+     *
+     * @param resourceName a {@link java.lang.String} object.
+     * @param outputStream a {@link java.io.OutputStream} object, not closed.
+     * @param progress a {@link com.ehsaniara.s3.Progress} object.
+     * @throws org.apache.maven.wagon.TransferFailedException if any.
+     * @throws org.apache.maven.wagon.ResourceDoesNotExistException if any.
+     */
+    public void copyToStream(String resourceName, OutputStream outputStream, Progress progress) throws TransferFailedException, ResourceDoesNotExistException {
+
+        final String key = resolveKey(resourceName);
+
+        GetObjectRequest getRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+
+        download(getRequest, outputStream, progress, null);
+    }
+
+    /**
+     * Streams the resource into the output stream with a single conditional GET if it changed
+     * since the given time.
+     *
+     * @param resourceName a {@link java.lang.String} object.
+     * @param outputStream a {@link java.io.OutputStream} object, not closed.
+     * @param timeStamp the last modification time of the local copy, 0 if unknown.
+     * @param progress a {@link com.ehsaniara.s3.Progress} object.
+     * @param transferStarted called once the response is there and the body is about to be written.
+     * @return true if the resource was newer and has been written, false on 304 Not Modified.
+     * @throws org.apache.maven.wagon.TransferFailedException if any.
+     * @throws org.apache.maven.wagon.ResourceDoesNotExistException if any.
+     */
+    public boolean copyIfNewerToStream(String resourceName, OutputStream outputStream, long timeStamp, Progress progress, Runnable transferStarted) throws TransferFailedException, ResourceDoesNotExistException {
+
+        final String key = resolveKey(resourceName);
+
+        if (isKnownNotNewer(key, timeStamp)) {
+            return false;
+        }
+
+        GetObjectRequest.Builder getRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key);
+        if (timeStamp > 0) {
+            getRequest.ifModifiedSince(Instant.ofEpochMilli(timeStamp));
+        }
+        String eTag = E_TAGS.lookup(bucket, key, timeStamp);
+        if (eTag != null) {
+            getRequest.ifNoneMatch(eTag);
+        }
+
+        return download(getRequest.build(), outputStream, progress, transferStarted);
+    }
+
+    private boolean isKnownNotNewer(String key, long timeStamp) {
+        MetadataCache.Head head = metadataCache.head(key);
+        return head != null && head.isExists() && head.getLastModified() != null
+                && timeStamp > 0 && head.getLastModified().toEpochMilli() <= timeStamp;
+    }
+
+    private boolean download(GetObjectRequest getRequest, File destination, Progress progress, Runnable transferStarted) throws TransferFailedException, ResourceDoesNotExistException {
+
+        final String key = getRequest.key();
+
         try {
-            GetObjectRequest getRequest = GetObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .build();
+            final ResponseInputStream<GetObjectResponse> s3Object = getObject(getRequest);
+            if (s3Object == null) {
+                return false;
+            }
+            if (transferStarted != null) {
+                transferStarted.run();
+            }
+            write(key, s3Object, destination, progress);
+            E_TAGS.remember(bucket, key, s3Object.response().eTag(), destination);
+            return true;
+        } catch (SdkException | IOException e) {
+            log.log(Level.SEVERE, "Could not transfer file", e);
+            throw new TransferFailedException("Could not download resource " + key, e);
+        }
+    }
 
-            final ResponseInputStream<GetObjectResponse> s3Object;
-            try {
-                s3Object = s3Client.getObject(getRequest);
-            } catch (NoSuchKeyException e) {
-                throw new ResourceDoesNotExistException("Resource not exist");
+    private boolean download(GetObjectRequest getRequest, OutputStream outputStream, Progress progress, Runnable transferStarted) throws TransferFailedException, ResourceDoesNotExistException {
+
+        final String key = getRequest.key();
+
+        try (ResponseInputStream<GetObjectResponse> s3Object = getObject(getRequest)) {
+            if (s3Object == null) {
+                return false;
             }
-            //make sure the folder exists or the outputStream will fail.
-            destination.getParentFile().mkdirs();
-            //
-            try (OutputStream outputStream = new ProgressFileOutputStream(destination, progress);
-                 InputStream inputStream = s3Object) {
-                IOUtils.copy(inputStream, outputStream);
+            if (transferStarted != null) {
+                transferStarted.run();
             }
-        } catch (S3Exception | IOException e) {
+            IOUtils.copy(new ProgressInputStream(s3Object, progress), outputStream);
+            E_TAGS.remember(bucket, key, s3Object.response().eTag(), s3Object.response().lastModified());
+            return true;
+        } catch (SdkException | IOException e) {
             log.log(Level.SEVERE, "Could not transfer file", e);
-            throw new TransferFailedException("Could not download resource " + key);
+            throw new TransferFailedException("Could not download resource " + key, e);
+        }
+    }
+
+    private void copyThroughCache(String key, File destination, Progress progress) throws TransferFailedException, ResourceDoesNotExistException {
+        ArtifactCache.Entry opened;
+        try {
+            opened = artifactCache.open(bucket, key);
+        } catch (IOException | RuntimeException e) {
+            // the cache only saves downloads, it must never be the reason one fails
+            log.log(Level.WARNING, String.format("Could not open the artifact cache, downloading %s directly", key), e);
+            download(GetObjectRequest.builder().bucket(bucket).key(key).build(), destination, progress, null);
+            return;
+        }
+
+        try {
+            boolean downloaded = false;
+            try (ArtifactCache.Entry entry = opened) {
+                if (!entry.isFresh()) {
+                    GetObjectRequest.Builder getRequest = GetObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key);
+                    if (entry.getETag() != null) {
+                        getRequest.ifNoneMatch(entry.getETag());
+                    }
+
+                    final ResponseInputStream<GetObjectResponse> s3Object = getObject(getRequest.build());
+                    if (s3Object == null) {
+                        entry.validated();
+                    } else {
+                        File temp = entry.newTempFile();
+                        try {
+                            write(key, s3Object, temp, progress);
+                            entry.store(temp, s3Object.response().eTag());
+                            downloaded = true;
+                        } finally {
+                            Files.deleteIfExists(temp.toPath());
+                        }
+                    }
+                }
+                entry.copyTo(destination);
+            }
+            if (!downloaded) {
+                log.log(Level.FINER, String.format("Serving %s from the artifact cache", key));
+                // checksums are calculated from the progress events, so cached bytes are reported as well
+                ArtifactCache.replay(destination, progress);
+            }
+        } catch (SdkException | IOException e) {
+            log.log(Level.SEVERE, "Could not transfer file", e);
+            throw new TransferFailedException("Could not download resource " + key, e);
+        }
+    }
+
+    // returns null if S3 answered 304 Not Modified
+    private ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest getRequest) throws ResourceDoesNotExistException, IOException {
+        final String key = getRequest.key();
+
+        MetadataCache.Head head = metadataCache.head(key);
+        if (head != null && !head.isExists()) {
+            throw new ResourceDoesNotExistException("Resource not exist");
+        }
+
+        try {
+            ResponseInputStream<GetObjectResponse> s3Object;
+            if (asyncEngine != null) {
+                s3Object = asyncEngine.getObject(getRequest);
+            } else if (hedgedGets != null) {
+                s3Object = hedgedGets.call(() -> s3Client.getObject(getRequest), ResponseInputStream::abort);
+            } else {
+                s3Object = s3Client.getObject(getRequest);
+            }
+            GetObjectResponse response = s3Object.response();
+            metadataCache.found(key, response.contentLength(), response.lastModified(), response.eTag());
+            return s3Object;
+        } catch (NoSuchKeyException e) {
+            log.log(Level.FINER, String.format("Could not find %s", key));
+            metadataCache.missing(key);
+            throw new ResourceDoesNotExistException("Resource not exist");
+        } catch (S3Exception e) {
+            if (e.statusCode() == HTTP_NOT_MODIFIED) {
+                log.log(Level.FINER, String.format("Key %s not modified", key));
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    // both paths write into a temporary file and only replace the destination once it is complete
+    private void write(String key, ResponseInputStream<GetObjectResponse> s3Object, File destination, Progress progress) throws IOException {
+        if (isRangedDownload(s3Object.response())) {
+            File parent = destination.getAbsoluteFile().getParentFile();
+            if (!parent.isDirectory()) {
+                Files.createDirectories(parent.toPath());
+            }
+            new RangedDownload(s3Client, bucket, key, rangedDownloadProperty).download(s3Object, destination, progress);
+        } else {
+            try (InputStream inputStream = s3Object) {
+                AtomicFileWriter.write(inputStream, destination, progress);
+            }
         }
     }
 
@@ -141,23 +442,112 @@ public class S3StorageRepo {
         final String key = resolveKey(destination);
 
         try {
-            try (InputStream inputStream = new ProgressFileInputStream(file, progress)) {
+            if (asyncEngine != null) {
+                AsyncTransferEngine.join(putAsync(file, destination, progress));
+                return;
+            }
+
+            if (file.length() >= multipartUploadProperty.getThreshold()) {
+                if (publicReadProperty.get()) {
+                    log.info("Public read was set to true");
+                }
+                new MultipartUpload(s3Client, bucket, key, publicReadProperty.get(), multipartUploadProperty).upload(file, progress);
+                metadataCache.written(key, file.length(), null);
+                return;
+            }
+
+            final long contentLength = file.length();
+            try (FileContentProvider content = new FileContentProvider(file, 0, contentLength, progress)) {
                 PutObjectRequest.Builder putRequestBuilder = PutObjectRequest.builder()
                         .bucket(bucket)
                         .key(key)
-                        .contentLength(file.length());
+                        .contentLength(contentLength);
 
                 applyPublicRead(putRequestBuilder);
 
-                s3Client.putObject(putRequestBuilder.build(),
-                        RequestBody.fromInputStream(inputStream, file.length()));
+                PutObjectResponse response = s3Client.putObject(putRequestBuilder.build(), content.requestBody());
+                metadataCache.written(key, contentLength, response.eTag());
             }
-        } catch (S3Exception | IOException e) {
+        } catch (SdkException | IOException e) {
             log.log(Level.SEVERE, "Could not transfer file ", e);
-            throw new TransferFailedException("Could not transfer file " + file.getName());
+            throw new TransferFailedException("Could not transfer file " + file.getName(), e);
         }
     }
 
+    /**
+     * Uploads the content of a stream. Content up to the multipart threshold, at most
+     * {@code 16MB}, is buffered in memory and sent with a single PUT. Larger content, or content
+     * of unknown length that turns out larger, is spooled to a temporary file first.
+     *
+     * @param inputStream a {@link java.io.InputStream} object, not closed.
+     * @param destination a {@link java.lang.String} object.
+     * @param contentLength the length of the content, or a negative value if unknown.
+     * @param progress a {@link com.ehsaniara.s3.Progress} object.
+     * @throws org.apache.maven.wagon.TransferFailedException if any.
+     */
+    public void put(InputStream inputStream, String destination, long contentLength, Progress progress) throws TransferFailedException {
+
+        final String key = resolveKey(destination);
+        final long limit = Math.min(multipartUploadProperty.getThreshold(), MAX_STREAM_BUFFER_SIZE);
+        // the bytes are reported as they are read from the caller, retries of the upload are not reported again
+        final InputStream content = new ProgressInputStream(inputStream, progress);
+
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(contentLength >= 0 && contentLength <= limit ? (int) contentLength : 8192);
+            if (contentLength <= limit) {
+                IOUtils.copyLarge(content, buffer, 0, limit + 1);
+            }
+
+            if (contentLength <= limit && buffer.size() <= limit) {
+                PutObjectRequest.Builder putRequestBuilder = PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentLength((long) buffer.size());
+
+                applyPublicRead(putRequestBuilder);
+
+                PutObjectResponse response = s3Client.putObject(putRequestBuilder.build(), RequestBody.fromBytes(buffer.toByteArray()));
+                metadataCache.written(key, buffer.size(), response.eTag());
+                return;
+            }
+
+            File temp = Files.createTempFile("s3-put-", ".tmp").toFile();
+            try {
+                try (OutputStream outputStream = new FileOutputStream(temp)) {
+                    buffer.writeTo(outputStream);
+                    IOUtils.copyLarge(content, outputStream);
+                }
+                put(temp, destination, (bytes, length) -> {
+                });
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+        } catch (SdkException | IOException e) {
+            log.log(Level.SEVERE, "Could not transfer stream ", e);
+            throw new TransferFailedException("Could not transfer stream to " + destination, e);
+        }
+    }
+
+    /**
+     * Uploads a file on the asynchronous engine without blocking the calling thread.
+     *
+     * @param file a {@link java.io.File} object.
+     * @param destination a {@link java.lang.String} object.
+     * @param progress a {@link com.ehsaniara.s3.Progress} object, called from the SDK's I/O threads.
+     * @return a {@link java.util.concurrent.CompletableFuture} completed once the object is stored.
+     * @throws java.lang.IllegalStateException if the asynchronous engine is not enabled.
+     */
+    public CompletableFuture<Void> putAsync(File file, String destination, Progress progress) {
+        if (asyncEngine == null) {
+            throw new IllegalStateException("The asynchronous engine is not enabled");
+        }
+        final String key = resolveKey(destination);
+        final long length = file.length();
+
+        return asyncEngine.upload(key, file, publicReadProperty.get(), progress)
+                .thenAccept(response -> metadataCache.written(key, length, response.eTag()));
+    }
+
     /**
      * <p>newResourceAvailable.</p>
      *
@@ -172,19 +562,17 @@ public class S3StorageRepo {
 
         log.log(Level.FINER, String.format("Checking if new key %s exists", key));
 
-        try {
-            HeadObjectRequest headRequest = HeadObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .build();
-
-            HeadObjectResponse response = s3Client.headObject(headRequest);
-            long updated = response.lastModified().toEpochMilli();
-            return updated > timeStamp;
-        } catch (NoSuchKeyException e) {
-            log.log(Level.SEVERE, String.format("Could not find %s", key), e);
+        MetadataCache.Head head = head(key);
+        if (head.isExists() && head.getLastModified() == null) {
+            // uploaded in this session, only S3 knows when
+            head = fetchHead(key);
+        }
+        if (!head.isExists()) {
+            log.log(Level.FINER, String.format("Could not find %s", key));
             throw new ResourceDoesNotExistException("Could not find key " + key);
         }
+        long updated = head.getLastModified().toEpochMilli();
+        return updated > timeStamp;
     }
 
 
@@ -213,6 +601,63 @@ public class S3StorageRepo {
         return objects;
     }
 
+    /**
+     * Lists the entries directly below a directory with a delimited listing, so the cost is
+     * proportional to the entries of that level instead of the whole subtree.
+     *
+     * @param path a {@link java.lang.String} object.
+     * @return the names relative to the directory, the names of sub directories end with {@code /}.
+     */
+    public List<String> listChildren(String path) {
+
+        String key = resolveKey(path);
+        String prefix = key.isEmpty() ? key : key + "/";
+
+        List<String> cached = metadataCache.children(prefix);
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+
+        List<String> keys;
+        if (asyncEngine != null) {
+            try {
+                keys = AsyncTransferEngine.join(asyncEngine.listChildren(prefix));
+            } catch (IOException e) {
+                throw SdkClientException.create("Could not list " + prefix, e);
+            }
+        } else {
+            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+                    .bucket(bucket)
+                    .prefix(prefix)
+                    .delimiter("/")
+                    .build();
+
+            keys = new ArrayList<>();
+            for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(listRequest)) {
+                page.contents().forEach(s3Object -> keys.add(s3Object.key()));
+                page.commonPrefixes().forEach(commonPrefix -> keys.add(commonPrefix.prefix()));
+            }
+        }
+
+        List<String> children = new ArrayList<>();
+        for (String child : keys) {
+            // a directory marker object has the key of the directory itself
+            if (child.length() > prefix.length()) {
+                children.add(child.substring(prefix.length()));
+            }
+        }
+
+        metadataCache.listedChildren(prefix, children);
+        return children;
+    }
+
+    private boolean isRangedDownload(GetObjectResponse response) {
+        return rangedDownloadProperty.isEnabled()
+                && response.contentLength() != null
+                && response.contentLength() >= rangedDownloadProperty.getThreshold()
+                && response.contentLength() > rangedDownloadProperty.getPartSize();
+    }
+
     private void applyPublicRead(PutObjectRequest.Builder putRequestBuilder) {
         if (publicReadProperty.get()) {
             log.info("Public read was set to true");
@@ -230,16 +675,27 @@ public class S3StorageRepo {
 
         final String key = resolveKey(resourceName);
 
+        return head(key).isExists();
+    }
+
+    private MetadataCache.Head head(String key) {
+        MetadataCache.Head head = metadataCache.head(key);
+        return head != null ? head : fetchHead(key);
+    }
+
+    private MetadataCache.Head fetchHead(String key) {
         try {
             HeadObjectRequest headRequest = HeadObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
                     .build();
 
-            s3Client.headObject(headRequest);
-            return true;
+            HeadObjectResponse response = hedgedHeads != null
+                    ? hedgedHeads.call(() -> s3Client.headObject(headRequest), ignored -> { })
+                    : s3Client.headObject(headRequest);
+            return metadataCache.found(key, response.contentLength(), response.lastModified(), response.eTag());
         } catch (NoSuchKeyException e) {
-            return false;
+            return metadataCache.missing(key);
         }
     }
 
@@ -247,7 +703,17 @@ public class S3StorageRepo {
      * <p>disconnect.</p>
      */
     public void disconnect() {
-        if (s3Client != null) {
+        asyncEngine = null;
+        if (asyncClientLease != null) {
+            asyncClientLease.close();
+            asyncClientLease = null;
+        }
+        log.fine(String.format("Metadata cache of bucket %s: %d hits, %d misses", bucket, metadataCache.getHits(), metadataCache.getMisses()));
+        if (clientLease != null) {
+            // the shared client stays open for other wagons until it is idle
+            clientLease.close();
+            clientLease = null;
+        } else if (s3Client != null) {
             s3Client.close();
         }
         s3Client = null;
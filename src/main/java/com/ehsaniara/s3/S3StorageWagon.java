@@ -17,12 +17,13 @@
 package com.ehsaniara.s3;
 
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.java.Log;
-import org.apache.commons.io.FileUtils;
 import org.apache.maven.wagon.PathUtils;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.StreamingWagon;
 import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
@@ -33,15 +34,39 @@ import org.apache.maven.wagon.repository.Repository;
 import org.apache.maven.wagon.resource.Resource;
 
 import java.io.File;
-import java.util.Collection;
-import java.util.HashSet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * <p>S3StorageWagon class.</p>
+ * <p>
+ * A connected wagon is thread safe: {@code get}, {@code put}, {@code getIfNewer},
+ * {@code resourceExists} and the streaming transfers may run concurrently and share one S3
+ * client. Every transfer reports its progress on its own {@link org.apache.maven.wagon.resource.Resource}.
+ * The settings are read once by {@code connect}, changing them later does not affect the open
+ * connection. {@code connect} and {@code disconnect} must not overlap with transfers.
+ * <p>
+ * With {@code lazyConnect} the S3 client, the region and the credentials are only resolved by the
+ * first transfer, so repositories that are connected but never used cost nothing.
  *
  * @author jay
  * @version $Id: $Id
@@ -49,10 +74,24 @@ import java.util.stream.Collectors;
 @Setter
 @Getter
 @Log
-public class S3StorageWagon extends AbstractStorageWagon {
-
-    private S3StorageRepo s3StorageRepo;
-    private final KeyResolver keyResolver = new KeyResolver();
+public class S3StorageWagon extends AbstractStorageWagon implements StreamingWagon {
+
+    private static final String PUT_DIRECTORY_THREADS_PROP = "S3_PUT_DIRECTORY_THREADS";
+    private static final int DEFAULT_PUT_DIRECTORY_THREADS = 4;
+    static final String METADATA_CACHE_SIZE_PROP = "S3_METADATA_CACHE_SIZE";
+    static final int DEFAULT_METADATA_CACHE_SIZE = 10000;
+    private static final String LAZY_CONNECT_PROP = "S3_LAZY_CONNECT";
+    static final String WARM_UP_CONNECTIONS_PROP = "S3_WARM_UP_CONNECTIONS";
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    // replaced as a whole by connect, so concurrent transfers never see a partly configured repository
+    @Setter(AccessLevel.PACKAGE)
+    @Getter(AccessLevel.PACKAGE)
+    private volatile S3StorageRepo s3StorageRepo;
+    // the deferred connect of a lazy connection, cleared by the first transfer
+    @Setter(AccessLevel.NONE)
+    @Getter(AccessLevel.NONE)
+    private volatile Connector pendingConnect;
 
     private String region;
     private Boolean publicRepository;
@@ -61,6 +100,47 @@ public class S3StorageWagon extends AbstractStorageWagon {
     private String pathStyleEnabled;
     private String profile;
 
+    private String multipartThreshold;
+    private String multipartPartSize;
+    private String multipartConcurrency;
+
+    private String rangedDownloadThreshold;
+    private String rangedDownloadPartSize;
+    private String rangedDownloadConcurrency;
+
+    private Integer putDirectoryThreads;
+
+    private String cacheDirectory;
+    private String cacheMaxSize;
+    private String cacheTtl;
+
+    private Integer metadataCacheSize;
+
+    private String httpMaxConnections;
+    private String httpConnectionTtl;
+    private String httpConnectionMaxIdleTime;
+    private String httpTcpKeepAlive;
+    private String httpSocketSendBufferSize;
+    private String httpSocketReceiveBufferSize;
+    private String httpExpectContinue;
+    private String httpConnectionAcquisitionTimeout;
+
+    private String asyncEngine;
+    private String asyncConcurrency;
+
+    private String retryMode;
+    private String maxRetries;
+    private String circuitBreakerThreshold;
+    private String circuitBreakerCooldown;
+
+    private String hedgeRequests;
+    private String hedgePercentile;
+    private String hedgeMinDelay;
+    private String hedgeBudget;
+
+    private Boolean lazyConnect;
+    private Integer warmUpConnections;
+
     /** {@inheritDoc} */
     @Override
     public void get(String resourceName, File file) throws TransferFailedException, ResourceDoesNotExistException {
@@ -72,7 +152,7 @@ public class S3StorageWagon extends AbstractStorageWagon {
         final Progress progress = new ProgressImpl(resource, TransferEvent.REQUEST_GET, listenerContainer);
 
         try {
-            s3StorageRepo.copy(resourceName, file, progress);
+            repo().copy(resourceName, file, progress);
             listenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_GET);
         } catch (Exception e) {
             listenerContainer.fireTransferError(resource, TransferEvent.REQUEST_GET, e);
@@ -85,8 +165,7 @@ public class S3StorageWagon extends AbstractStorageWagon {
     @Override
     public List<String> getFileList(String s) throws TransferFailedException, ResourceDoesNotExistException {
         try {
-            List<String> list = s3StorageRepo.list(s);
-            list = convertS3ListToMavenFileList(list, s);
+            List<String> list = repo().listChildren(s);
             if (list.isEmpty()) {
                 throw new ResourceDoesNotExistException(s);
             }
@@ -109,7 +188,7 @@ public class S3StorageWagon extends AbstractStorageWagon {
         final Progress progress = new ProgressImpl(resource, TransferEvent.REQUEST_PUT, listenerContainer);
 
         try {
-            s3StorageRepo.put(file, resourceName, progress);
+            repo().put(file, resourceName, progress);
             listenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_PUT);
         } catch (TransferFailedException e) {
             listenerContainer.fireTransferError(resource, TransferEvent.REQUEST_PUT, e);
@@ -117,81 +196,317 @@ public class S3StorageWagon extends AbstractStorageWagon {
         }
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Issues a single conditional GET, a 304 Not Modified response means the resource is not newer and fires
+     * no transfer events.
+     */
     @Override
     public boolean getIfNewer(String resourceName, File file, long timeStamp) throws TransferFailedException, ResourceDoesNotExistException {
 
-        if (s3StorageRepo.newResourceAvailable(resourceName, timeStamp)) {
-            get(resourceName, file);
-            return true;
+        Resource resource = new Resource(resourceName);
+        // a 304 transfers nothing, the transfer is only initiated once a body is coming
+        final AtomicBoolean initiated = new AtomicBoolean();
+
+        final Progress progress = new ProgressImpl(resource, TransferEvent.REQUEST_GET, listenerContainer);
+
+        try {
+            boolean newer = repo().copyIfNewer(resourceName, file, timeStamp, progress, () -> {
+                initiated.set(true);
+                listenerContainer.fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
+                listenerContainer.fireTransferStarted(resource, TransferEvent.REQUEST_GET, file);
+            });
+            if (newer) {
+                listenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_GET);
+            }
+            return newer;
+        } catch (Exception e) {
+            if (!initiated.get()) {
+                listenerContainer.fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
+            }
+            listenerContainer.fireTransferError(resource, TransferEvent.REQUEST_GET, e);
+            throw e;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void getToStream(String resourceName, OutputStream stream) throws TransferFailedException, ResourceDoesNotExistException {
+
+        Resource resource = new Resource(resourceName);
+        listenerContainer.fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
+        listenerContainer.fireTransferStarted(resource, TransferEvent.REQUEST_GET, null);
+
+        final Progress progress = new ProgressImpl(resource, TransferEvent.REQUEST_GET, listenerContainer);
+
+        try {
+            repo().copyToStream(resourceName, stream, progress);
+            listenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_GET);
+        } catch (Exception e) {
+            listenerContainer.fireTransferError(resource, TransferEvent.REQUEST_GET, e);
+            throw e;
         }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Issues a single conditional GET, a 304 Not Modified response means the resource is not newer and fires
+     * no transfer events.
+     */
+    @Override
+    public boolean getIfNewerToStream(String resourceName, OutputStream stream, long timeStamp) throws TransferFailedException, ResourceDoesNotExistException {
+
+        Resource resource = new Resource(resourceName);
+        // a 304 transfers nothing, the transfer is only initiated once a body is coming
+        final AtomicBoolean initiated = new AtomicBoolean();
 
-        return false;
+        final Progress progress = new ProgressImpl(resource, TransferEvent.REQUEST_GET, listenerContainer);
+
+        try {
+            boolean newer = repo().copyIfNewerToStream(resourceName, stream, timeStamp, progress, () -> {
+                initiated.set(true);
+                listenerContainer.fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
+                listenerContainer.fireTransferStarted(resource, TransferEvent.REQUEST_GET, null);
+            });
+            if (newer) {
+                listenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_GET);
+            }
+            return newer;
+        } catch (Exception e) {
+            if (!initiated.get()) {
+                listenerContainer.fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
+            }
+            listenerContainer.fireTransferError(resource, TransferEvent.REQUEST_GET, e);
+            throw e;
+        }
     }
 
     /** {@inheritDoc} */
     @Override
+    public void putFromStream(InputStream stream, String destination) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        putFromStream(stream, destination, -1, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Small content is sent from memory without a temporary file, the content length may be
+     * negative if it is unknown.
+     */
+    @Override
+    public void putFromStream(InputStream stream, String destination, long contentLength, long lastModified) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+
+        Resource resource = new Resource(destination);
+        resource.setContentLength(contentLength);
+        resource.setLastModified(lastModified);
+
+        listenerContainer.fireTransferInitiated(resource, TransferEvent.REQUEST_PUT);
+        listenerContainer.fireTransferStarted(resource, TransferEvent.REQUEST_PUT, null);
+        final Progress progress = new ProgressImpl(resource, TransferEvent.REQUEST_PUT, listenerContainer);
+
+        try {
+            repo().put(stream, destination, contentLength, progress);
+            listenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_PUT);
+        } catch (TransferFailedException e) {
+            listenerContainer.fireTransferError(resource, TransferEvent.REQUEST_PUT, e);
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Files are streamed from a directory walk into a bounded pool of {@code putDirectoryThreads}
+     * upload workers, or with the asynchronous engine into up to {@code asyncConcurrency} uploads in
+     * flight without a thread each. Every file still fires its own transfer events. A failing file
+     * does not stop the others, all failures are reported together once the walk has finished.
+     */
+    @Override
     public void putDirectory(File source, String destination) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-        Collection<File> allFiles = FileUtils.listFiles(source, null, true);
         String relativeDestination = destination;
         // the initial deleting.
         if (destination != null && destination.startsWith(".")) {
             relativeDestination = destination.length() == 1 ? "" : destination.substring(1);
         }
-        for (File file : allFiles) {
-            String relativePath = PathUtils.toRelative(source, file.getAbsolutePath());
-            put(file, relativeDestination + "/" + relativePath);
+        final String targetDirectory = relativeDestination;
+
+        final S3StorageRepo repo = repo();
+        final boolean async = repo.isAsync();
+        // bounds the files waiting for a worker, so the walk never runs far ahead of the uploads
+        final int permits = async ? repo.getAsyncEngineProperty().getConcurrency() : getPutDirectoryThreads() * 2;
+        final Semaphore pending = new Semaphore(permits);
+        final List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger fileCount = new AtomicInteger();
+
+        ExecutorService executor = async ? null : Executors.newFixedThreadPool(getPutDirectoryThreads(), r -> {
+            Thread thread = new Thread(r, "s3-put-directory-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Stream<Path> paths = Files.walk(source.toPath(), FileVisitOption.FOLLOW_LINKS)) {
+            Iterator<Path> iterator = paths.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                final File file = iterator.next().toFile();
+                final String relativePath = PathUtils.toRelative(source, file.getAbsolutePath());
+                fileCount.incrementAndGet();
+
+                pending.acquire();
+                if (async) {
+                    try {
+                        putAsync(file, targetDirectory + "/" + relativePath).whenComplete((ignored, e) -> {
+                            if (e != null) {
+                                failures.add(e instanceof Exception ? (Exception) e : new TransferFailedException(e.getMessage(), e));
+                            }
+                            pending.release();
+                        });
+                    } catch (RuntimeException e) {
+                        failures.add(e);
+                        pending.release();
+                    }
+                } else {
+                    executor.execute(() -> {
+                        try {
+                            put(file, targetDirectory + "/" + relativePath);
+                        } catch (Exception e) {
+                            failures.add(e);
+                        } finally {
+                            pending.release();
+                        }
+                    });
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            failures.add(new TransferFailedException("Could not read directory " + source, e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.add(new TransferFailedException("Interrupted while uploading directory " + source, e));
+        } finally {
+            if (async) {
+                // every upload in flight holds a permit
+                pending.acquireUninterruptibly(permits);
+            } else {
+                executor.shutdown();
+                awaitTermination(executor);
+            }
         }
-    }
 
-    /** {@inheritDoc} */
-    @Override
-    public boolean resourceExists(String resourceName) {
-        return s3StorageRepo.exists(resourceName);
+        if (!failures.isEmpty()) {
+            TransferFailedException exception = new TransferFailedException(String.format("Could not upload %d of %d files from %s",
+                    failures.size(), fileCount.get(), source), failures.get(0));
+            failures.stream().skip(1).forEach(exception::addSuppressed);
+            throw exception;
+        }
     }
 
+    private CompletableFuture<Void> putAsync(File file, String resourceName) {
+        Resource resource = new Resource(resourceName);
 
-    /**
-     * @param list list of String as list
-     * @param path just the path
-     * @return List of String
-     */
-    private List<String> convertS3ListToMavenFileList(List<String> list, String path) {
-        String prefix = keyResolver.resolve(s3StorageRepo.getBaseDirectory(), path);
-        Set<String> folders = new HashSet<>();
-        List<String> result = list.stream().map(key -> {
-            String filePath = key;
-            // deleting the prefix from the object path
-            if (prefix != null && prefix.length() > 0)
-                filePath = key.substring(prefix.length() + 1);
-
-            extractFolders(folders, filePath);
-
-            return filePath;
-        }).collect(Collectors.toList());
-        result.addAll(folders);
+        listenerContainer.fireTransferInitiated(resource, TransferEvent.REQUEST_PUT);
+        listenerContainer.fireTransferStarted(resource, TransferEvent.REQUEST_PUT, file);
+        final Progress progress = new ProgressImpl(resource, TransferEvent.REQUEST_PUT, listenerContainer);
+
+        CompletableFuture<Void> upload;
+        try {
+            upload = repo().putAsync(file, resourceName, progress);
+        } catch (TransferFailedException | RuntimeException e) {
+            upload = new CompletableFuture<>();
+            upload.completeExceptionally(e);
+        }
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        upload.whenComplete((ignored, e) -> {
+            if (e == null) {
+                listenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_PUT);
+                result.complete(null);
+            } else {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.log(Level.SEVERE, "Could not transfer file ", cause);
+                TransferFailedException failure = new TransferFailedException("Could not transfer file " + file.getName(), cause);
+                listenerContainer.fireTransferError(resource, TransferEvent.REQUEST_PUT, failure);
+                result.completeExceptionally(failure);
+            }
+        });
         return result;
     }
 
-    /**
-     * @param folders  folders set of strings
-     * @param filePath just filePath
-     */
-    private void extractFolders(Set<String> folders, String filePath) {
-        if (filePath.contains("/")) {
-            String folder = filePath.substring(0, filePath.lastIndexOf('/'));
-            folders.add(folder + '/');
-            if (folder.contains("/")) {
-                extractFolders(folders, folder);
+    private S3StorageRepo repo() throws TransferFailedException {
+        if (pendingConnect != null) {
+            synchronized (this) {
+                Connector connector = pendingConnect;
+                if (connector != null) {
+                    try {
+                        connector.connect();
+                    } catch (AuthenticationException e) {
+                        throw new TransferFailedException("Could not connect to bucket " + repository.getHost(), e);
+                    }
+                    pendingConnect = null;
+                }
             }
-        } else {
-            folders.add(filePath);
+        }
+        return s3StorageRepo;
+    }
+
+    private boolean isLazyConnect() {
+        if (lazyConnect != null) {
+            return lazyConnect;
+        }
+        return Boolean.getBoolean(LAZY_CONNECT_PROP);
+    }
+
+    private int getPutDirectoryThreads() {
+        if (putDirectoryThreads != null) {
+            return Math.max(1, putDirectoryThreads);
+        }
+        return Math.max(1, Integer.getInteger(PUT_DIRECTORY_THREADS_PROP, DEFAULT_PUT_DIRECTORY_THREADS));
+    }
+
+    private int getMetadataCacheSize() {
+        if (metadataCacheSize != null) {
+            return Math.max(0, metadataCacheSize);
+        }
+        return Math.max(0, Integer.getInteger(METADATA_CACHE_SIZE_PROP, DEFAULT_METADATA_CACHE_SIZE));
+    }
+
+    private interface Connector {
+        void connect() throws AuthenticationException;
+    }
+
+    private int getWarmUpConnections() {
+        if (warmUpConnections != null) {
+            return Math.max(0, warmUpConnections);
+        }
+        return Math.max(0, Integer.getInteger(WARM_UP_CONNECTIONS_PROP, 0));
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                executor.shutdownNow();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
     }
 
     /** {@inheritDoc} */
     @Override
-    public void connect(Repository repository, AuthenticationInfo authenticationInfo, ProxyInfoProvider proxyInfoProvider) throws AuthenticationException {
+    public boolean resourceExists(String resourceName) throws TransferFailedException {
+        return repo().exists(resourceName);
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void connect(Repository repository, AuthenticationInfo authenticationInfo, ProxyInfoProvider proxyInfoProvider) throws AuthenticationException {
 
         this.repository = repository;
         this.sessionListenerContainer.fireSessionOpening();
@@ -207,8 +522,29 @@ public class S3StorageWagon extends AbstractStorageWagon {
         final String directory = stringBuilder.toString();
 
         log.log(Level.FINER, String.format("Opening connection for bucket %s and directory %s", bucket, directory));
-        s3StorageRepo = new S3StorageRepo(bucket, directory, new PublicReadProperty(publicRepository));
-        s3StorageRepo.connect(authenticationInfo, region, new EndpointProperty(endpoint), new PathStyleEnabledProperty(pathStyleEnabled), profile);
+        S3StorageRepo s3StorageRepo = new S3StorageRepo(bucket, directory, new PublicReadProperty(publicRepository));
+        s3StorageRepo.setMultipartUploadProperty(new MultipartUploadProperty(multipartThreshold, multipartPartSize, multipartConcurrency));
+        s3StorageRepo.setRangedDownloadProperty(new RangedDownloadProperty(rangedDownloadThreshold, rangedDownloadPartSize, rangedDownloadConcurrency));
+        s3StorageRepo.setArtifactCacheProperty(new ArtifactCacheProperty(cacheDirectory, cacheMaxSize, cacheTtl));
+        s3StorageRepo.setMetadataCache(new MetadataCache(getMetadataCacheSize()));
+        s3StorageRepo.setHttpTransportProperty(new HttpTransportProperty(httpMaxConnections, httpConnectionTtl, httpConnectionMaxIdleTime,
+                httpTcpKeepAlive, httpSocketSendBufferSize, httpSocketReceiveBufferSize, httpExpectContinue, httpConnectionAcquisitionTimeout));
+        s3StorageRepo.setAsyncEngineProperty(new AsyncEngineProperty(asyncEngine, asyncConcurrency));
+        s3StorageRepo.setRetryProperty(new RetryProperty(retryMode, maxRetries, circuitBreakerThreshold, circuitBreakerCooldown));
+        s3StorageRepo.setHedgingProperty(new HedgingProperty(hedgeRequests, hedgePercentile, hedgeMinDelay, hedgeBudget));
+        s3StorageRepo.setWarmUpConnections(getWarmUpConnections());
+        final EndpointProperty endpointProperty = new EndpointProperty(endpoint);
+        final PathStyleEnabledProperty pathStyle = new PathStyleEnabledProperty(pathStyleEnabled);
+        final String connectRegion = region;
+        final String connectProfile = profile;
+        Connector connector = () -> s3StorageRepo.connect(authenticationInfo, connectRegion, endpointProperty, pathStyle, connectProfile);
+        if (isLazyConnect()) {
+            this.pendingConnect = connector;
+        } else {
+            this.pendingConnect = null;
+            connector.connect();
+        }
+        this.s3StorageRepo = s3StorageRepo;
 
         sessionListenerContainer.fireSessionLoggedIn();
         sessionListenerContainer.fireSessionOpened();
@@ -216,8 +552,9 @@ public class S3StorageWagon extends AbstractStorageWagon {
 
     /** {@inheritDoc} */
     @Override
-    public void disconnect() {
+    public synchronized void disconnect() {
         sessionListenerContainer.fireSessionDisconnecting();
+        pendingConnect = null;
         s3StorageRepo.disconnect();
         sessionListenerContainer.fireSessionLoggedOff();
         sessionListenerContainer.fireSessionDisconnected();
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.AuthenticationContext;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.AbstractTransporter;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.TransportListener;
+import org.eclipse.aether.spi.connector.transport.TransportTask;
+import org.eclipse.aether.transfer.TransferCancelledException;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+
+/**
+ * <p>S3Transporter class.</p>
+ * <p>
+ * A resolver transporter on top of {@link com.ehsaniara.s3.S3StorageRepo}. Resolver shares one
+ * transporter between its download threads, the S3 client and the caches of the repository are
+ * thread safe, so artifacts are fetched concurrently over the same connection pool.
+ * <p>
+ * The settings of the wagon are read from the session configuration as
+ * {@code aether.transport.s3.<name>.<repositoryId>} or {@code aether.transport.s3.<name>}, e.g.
+ * {@code -Daether.transport.s3.region=eu-west-1}. Credentials come from the server of the repository.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public class S3Transporter extends AbstractTransporter {
+
+    private static final String CONFIG_PREFIX = "aether.transport.s3.";
+
+    private final S3StorageRepo s3StorageRepo;
+
+    /**
+     * <p>Constructor for S3Transporter.</p>
+     *
+     * @param session    a {@link org.eclipse.aether.RepositorySystemSession} object.
+     * @param repository a {@link org.eclipse.aether.repository.RemoteRepository} object with an {@code s3://bucket/directory} url.
+     * @throws org.apache.maven.wagon.authentication.AuthenticationException if any.
+     */
+    public S3Transporter(RepositorySystemSession session, RemoteRepository repository) throws AuthenticationException {
+        this(connect(new Config(session, repository), repository));
+    }
+
+    S3Transporter(S3StorageRepo s3StorageRepo) {
+        this.s3StorageRepo = s3StorageRepo;
+    }
+
+    private static S3StorageRepo connect(Config config, RemoteRepository repository) throws AuthenticationException {
+        URI uri = URI.create(repository.getUrl());
+        final String bucket = uri.getHost();
+        if (bucket == null) {
+            throw new IllegalArgumentException("No bucket in repository url " + repository.getUrl());
+        }
+
+        StringBuilder stringBuilder = new StringBuilder(uri.getPath() == null ? "" : uri.getPath());
+        if (stringBuilder.length() > 0 && stringBuilder.charAt(0) == '/') {
+            stringBuilder.deleteCharAt(0);
+        }
+        if ((stringBuilder.length() > 0) //
+                && (stringBuilder.charAt(stringBuilder.length() - 1) != '/')) {
+            stringBuilder.append('/');
+        }
+
+        final String directory = stringBuilder.toString();
+        final String publicRepository = config.get("publicRepository");
+
+        log.log(Level.FINER, String.format("Opening transporter for bucket %s and directory %s", bucket, directory));
+        S3StorageRepo s3StorageRepo = new S3StorageRepo(bucket, directory, new PublicReadProperty(publicRepository == null ? null : Boolean.valueOf(publicRepository)));
+        s3StorageRepo.setMultipartUploadProperty(new MultipartUploadProperty(config.get("multipartThreshold"), config.get("multipartPartSize"), config.get("multipartConcurrency")));
+        s3StorageRepo.setRangedDownloadProperty(new RangedDownloadProperty(config.get("rangedDownloadThreshold"), config.get("rangedDownloadPartSize"), config.get("rangedDownloadConcurrency")));
+        s3StorageRepo.setArtifactCacheProperty(new ArtifactCacheProperty(config.get("cacheDirectory"), config.get("cacheMaxSize"), config.get("cacheTtl")));
+        s3StorageRepo.setMetadataCache(new MetadataCache(Math.max(0, config.getInt("metadataCacheSize",
+                S3StorageWagon.METADATA_CACHE_SIZE_PROP, S3StorageWagon.DEFAULT_METADATA_CACHE_SIZE))));
+        s3StorageRepo.setHttpTransportProperty(new HttpTransportProperty(config.get("httpMaxConnections"), config.get("httpConnectionTtl"),
+                config.get("httpConnectionMaxIdleTime"), config.get("httpTcpKeepAlive"), config.get("httpSocketSendBufferSize"),
+                config.get("httpSocketReceiveBufferSize"), config.get("httpExpectContinue"), config.get("httpConnectionAcquisitionTimeout")));
+        s3StorageRepo.setAsyncEngineProperty(new AsyncEngineProperty(config.get("asyncEngine"), config.get("asyncConcurrency")));
+        s3StorageRepo.setRetryProperty(new RetryProperty(config.get("retryMode"), config.get("maxRetries"),
+                config.get("circuitBreakerThreshold"), config.get("circuitBreakerCooldown")));
+        s3StorageRepo.setHedgingProperty(new HedgingProperty(config.get("hedgeRequests"), config.get("hedgePercentile"),
+                config.get("hedgeMinDelay"), config.get("hedgeBudget")));
+        s3StorageRepo.setWarmUpConnections(Math.max(0, config.getInt("warmUpConnections", S3StorageWagon.WARM_UP_CONNECTIONS_PROP, 0)));
+        s3StorageRepo.connect(config.authenticationInfo(), config.get("region"), new EndpointProperty(config.get("endpoint")),
+                new PathStyleEnabledProperty(config.get("pathStyleEnabled")), config.get("profile"));
+        return s3StorageRepo;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int classify(Throwable error) {
+        return error instanceof ResourceDoesNotExistException ? ERROR_NOT_FOUND : ERROR_OTHER;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void implPeek(PeekTask task) throws Exception {
+        String resourceName = resourceName(task);
+        if (!s3StorageRepo.exists(resourceName)) {
+            throw new ResourceDoesNotExistException("Resource not exist " + resourceName);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void implGet(GetTask task) throws Exception {
+        final TransportListener listener = task.getListener();
+        final Progress progress = progress(listener);
+        String resourceName = resourceName(task);
+
+        listener.transportStarted(0, -1);
+        try {
+            if (task.getDataFile() != null) {
+                s3StorageRepo.copy(resourceName, task.getDataFile(), progress);
+            } else {
+                try (OutputStream outputStream = task.newOutputStream()) {
+                    s3StorageRepo.copyToStream(resourceName, outputStream, progress);
+                }
+            }
+        } catch (Exception e) {
+            throw cancellationOf(e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void implPut(PutTask task) throws Exception {
+        final TransportListener listener = task.getListener();
+        final Progress progress = progress(listener);
+        String resourceName = resourceName(task);
+
+        listener.transportStarted(0, task.getDataLength());
+        try {
+            if (task.getDataFile() != null) {
+                s3StorageRepo.put(task.getDataFile(), resourceName, progress);
+            } else {
+                try (InputStream inputStream = task.newInputStream()) {
+                    s3StorageRepo.put(inputStream, resourceName, task.getDataLength(), progress);
+                }
+            }
+        } catch (Exception e) {
+            throw cancellationOf(e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void implClose() {
+        s3StorageRepo.disconnect();
+    }
+
+    private static String resourceName(TransportTask task) {
+        return task.getLocation().getPath();
+    }
+
+    private static Progress progress(final TransportListener listener) {
+        return new Progress() {
+            @Override
+            public void progress(byte[] buffer, int length) {
+                progress(buffer, 0, length);
+            }
+
+            @Override
+            public void progress(byte[] buffer, int offset, int length) {
+                try {
+                    listener.transportProgressed(ByteBuffer.wrap(buffer, offset, length));
+                } catch (TransferCancelledException e) {
+                    throw new Cancelled(e);
+                }
+            }
+        };
+    }
+
+    // progress is also reported on SDK and upload worker threads, so the cancellation may arrive wrapped
+    private static Exception cancellationOf(Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof Cancelled) {
+                return ((Cancelled) cause).getCause();
+            }
+        }
+        return e;
+    }
+
+    /**
+     * The settings of one repository in the session configuration.
+     */
+    private static final class Config {
+        private final RepositorySystemSession session;
+        private final RemoteRepository repository;
+
+        private Config(RepositorySystemSession session, RemoteRepository repository) {
+            this.session = session;
+            this.repository = repository;
+        }
+
+        private String get(String name) {
+            Object value = session.getConfigProperties().get(CONFIG_PREFIX + name + "." + repository.getId());
+            if (value == null) {
+                value = session.getConfigProperties().get(CONFIG_PREFIX + name);
+            }
+            return value == null ? null : value.toString();
+        }
+
+        private int getInt(String name, String systemProperty, int defaultValue) {
+            String value = get(name);
+            return value != null ? Integer.parseInt(value.trim()) : Integer.getInteger(systemProperty, defaultValue);
+        }
+
+        private AuthenticationInfo authenticationInfo() {
+            try (AuthenticationContext context = AuthenticationContext.forRepository(session, repository)) {
+                if (context == null) {
+                    return null;
+                }
+                AuthenticationInfo authenticationInfo = new AuthenticationInfo();
+                authenticationInfo.setUserName(context.get(AuthenticationContext.USERNAME));
+                authenticationInfo.setPassword(context.get(AuthenticationContext.PASSWORD));
+                return authenticationInfo;
+            }
+        }
+    }
+
+    /**
+     * Carries a cancellation by the listener through {@link com.ehsaniara.s3.Progress}.
+     */
+    private static final class Cancelled extends RuntimeException {
+        private Cancelled(TransferCancelledException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized TransferCancelledException getCause() {
+            return (TransferCancelledException) super.getCause();
+        }
+    }
+
+}
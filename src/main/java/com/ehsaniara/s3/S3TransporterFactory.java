@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transfer.NoTransporterException;
+
+import javax.inject.Named;
+
+/**
+ * <p>S3TransporterFactory class.</p>
+ * <p>
+ * Provides the native resolver transporter for {@code s3://} repositories. Maven finds it through
+ * the Sisu index when the plugin is loaded as an extension, its priority is above the one of the
+ * wagon transporter, which would otherwise wrap {@link com.ehsaniara.s3.S3StorageWagon}.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Named(S3TransporterFactory.SCHEME)
+public class S3TransporterFactory implements TransporterFactory {
+
+    static final String SCHEME = "s3";
+
+    private float priority = 5.0f;
+
+    /** {@inheritDoc} */
+    @Override
+    public Transporter newInstance(RepositorySystemSession session, RemoteRepository repository) throws NoTransporterException {
+        if (!SCHEME.equalsIgnoreCase(repository.getProtocol())) {
+            throw new NoTransporterException(repository);
+        }
+
+        try {
+            return new S3Transporter(session, repository);
+        } catch (AuthenticationException | IllegalArgumentException e) {
+            throw new NoTransporterException(repository, e.getMessage(), e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public float getPriority() {
+        return priority;
+    }
+
+    /**
+     * <p>setPriority.</p>
+     *
+     * @param priority the priority among the transporters that support a repository.
+     * @return this factory.
+     */
+    public S3TransporterFactory setPriority(float priority) {
+        this.priority = priority;
+        return this;
+    }
+
+}
@@ -20,7 +20,7 @@ import org.apache.maven.wagon.Wagon;
 import org.apache.maven.wagon.events.SessionEvent;
 import org.apache.maven.wagon.events.SessionListener;
 
-import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * <p>SessionListenerContainerImpl class.</p>
@@ -34,7 +34,7 @@ import java.util.Vector;
 public class SessionListenerContainerImpl implements SessionListenerContainer {
 
     private final Wagon wagon;
-    private final Vector<SessionListener> sessionListeners;
+    private final CopyOnWriteArrayList<SessionListener> sessionListeners;
 
     /**
      * <p>Constructor for SessionListenerContainerImpl.</p>
@@ -43,7 +43,7 @@ public class SessionListenerContainerImpl implements SessionListenerContainer {
      */
     public SessionListenerContainerImpl(Wagon wagon) {
         this.wagon = wagon;
-        sessionListeners = new Vector<>();
+        sessionListeners = new CopyOnWriteArrayList<>();
     }
 
     /** {@inheritDoc} */
@@ -52,9 +52,7 @@ public class SessionListenerContainerImpl implements SessionListenerContainer {
         if (sessionListener == null) {
             throw new NullPointerException();
         }
-        if (!sessionListeners.contains(sessionListener)) {
-            sessionListeners.add(sessionListener);
-        }
+        sessionListeners.addIfAbsent(sessionListener);
     }
 
     /** {@inheritDoc} */
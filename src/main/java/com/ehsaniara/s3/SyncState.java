@@ -0,0 +1,279 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import lombok.extern.java.Log;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * <p>SyncState class.</p>
+ * <p>
+ * Remembers which version of every object was downloaded into a directory. A listed object is
+ * unchanged if its ETag and size match the recorded ones and the local file still has the length
+ * and modification time it had right after the download, so unchanged objects are skipped without
+ * a request per object.
+ *
+ * @author jay
+ * @version $Id: $Id
+ */
+@Log
+public class SyncState {
+
+    /**
+     * The name of the state file inside the download directory, unless configured otherwise.
+     */
+    public static final String DEFAULT_FILE_NAME = ".s3-sync.properties";
+
+    private final File directory;
+    private final File stateFile;
+    private final Map<String, Record> records = new HashMap<>();
+    private int unchanged;
+
+    /**
+     * <p>Constructor for SyncState.</p>
+     *
+     * @param directory a {@link java.io.File} object, the download directory.
+     * @param stateFile a {@link java.io.File} object, read if it exists.
+     */
+    public SyncState(File directory, File stateFile) {
+        this.directory = directory;
+        this.stateFile = stateFile;
+
+        if (stateFile.isFile()) {
+            Properties properties = new Properties();
+            try (InputStream inputStream = new FileInputStream(stateFile)) {
+                properties.load(inputStream);
+            } catch (IOException e) {
+                log.warning("Ignoring unreadable sync state " + stateFile + ", all objects are downloaded again");
+            }
+            for (String key : properties.stringPropertyNames()) {
+                Record record = Record.parse(properties.getProperty(key));
+                if (record != null) {
+                    records.put(key, record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Filters a listing down to the keys that have to be downloaded. The records of listed keys
+     * are marked for {@link #retainListed()} and {@link #deleteUnlisted()}, the listing itself is
+     * not kept.
+     *
+     * @param objects a {@link java.util.Iterator} object.
+     * @return a {@link java.util.Iterator} object of the new or changed keys.
+     */
+    public Iterator<String> changedKeys(final Iterator<S3Object> objects) {
+        return new Iterator<String>() {
+            private String next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && objects.hasNext()) {
+                    S3Object object = objects.next();
+                    if (!isUnchanged(object)) {
+                        next = object.key();
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String key = next;
+                next = null;
+                return key;
+            }
+        };
+    }
+
+    private synchronized boolean isUnchanged(S3Object object) {
+        Record record = records.get(object.key());
+        if (record == null) {
+            return false;
+        }
+        record.listed = true;
+        File file = file(object.key());
+        if (object.size() == null || !file.isFile()) {
+            return false;
+        }
+        boolean sameObject = record.eTag != null && object.eTag() != null
+                ? record.eTag.equals(object.eTag())
+                : object.lastModified() != null && record.lastModified == object.lastModified().toEpochMilli();
+        if (sameObject
+                && record.size == object.size()
+                && file.length() == record.size
+                && file.lastModified() == record.localModified) {
+            unchanged++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a downloaded object, meant to be used as {@link com.ehsaniara.s3.BulkDownload.Listener}.
+     *
+     * @param key      a {@link java.lang.String} object.
+     * @param response a {@link software.amazon.awssdk.services.s3.model.GetObjectResponse} object.
+     * @param file     a {@link java.io.File} object.
+     */
+    public synchronized void written(String key, GetObjectResponse response, File file) {
+        Instant lastModified = response.lastModified();
+        Record record = new Record(response.eTag(), file.length(),
+                lastModified == null ? 0 : lastModified.toEpochMilli(), file.lastModified());
+        record.listed = true;
+        records.put(key, record);
+    }
+
+    /**
+     * Forgets the objects that were not part of the listing. Only to be called after a complete listing.
+     */
+    public synchronized void retainListed() {
+        records.values().removeIf(record -> !record.listed);
+    }
+
+    /**
+     * Deletes the local files of recorded keys that were not part of the listing, and the
+     * directories they leave empty, and forgets these keys. Files this state never recorded are
+     * left alone. Only to be called after a complete listing.
+     *
+     * @return the number of deleted files.
+     * @throws java.io.IOException if any.
+     */
+    public synchronized int deleteUnlisted() throws IOException {
+        final Path root = directory.toPath().toAbsolutePath().normalize();
+        int deleted = 0;
+
+        for (Iterator<Map.Entry<String, Record>> entries = records.entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<String, Record> entry = entries.next();
+            if (entry.getValue().listed) {
+                continue;
+            }
+            entries.remove();
+            Path path = root.resolve(entry.getKey()).normalize();
+            if (!path.startsWith(root) || !Files.isRegularFile(path)) {
+                continue;
+            }
+            log.fine("Deleting " + path + ", its key no longer exists");
+            Files.delete(path);
+            deleted++;
+            for (Path parent = path.getParent(); !parent.equals(root) && isEmptyDirectory(parent); parent = parent.getParent()) {
+                Files.delete(parent);
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean isEmptyDirectory(Path path) throws IOException {
+        try (Stream<Path> children = Files.list(path)) {
+            return !children.findAny().isPresent();
+        }
+    }
+
+    /**
+     * <p>save.</p>
+     *
+     * @throws java.io.IOException if any.
+     */
+    public synchronized void save() throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Record> entry : records.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().toString());
+        }
+
+        File parent = stateFile.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        Path temp = Files.createTempFile(parent.toPath(), stateFile.getName() + ".", ".s3tmp");
+        try {
+            try (OutputStream outputStream = new FileOutputStream(temp.toFile())) {
+                properties.store(outputStream, "Objects downloaded by s3-download");
+            }
+            AtomicFileWriter.moveIntoPlace(temp, stateFile.toPath());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * <p>getUnchanged.</p>
+     *
+     * @return the number of listed objects that were skipped.
+     */
+    public synchronized int getUnchanged() {
+        return unchanged;
+    }
+
+    private File file(String key) {
+        return new File(directory, key);
+    }
+
+    private static final class Record {
+        private final String eTag;
+        private final long size;
+        private final long lastModified;
+        private final long localModified;
+        // part of the current listing, not stored
+        private boolean listed;
+
+        private Record(String eTag, long size, long lastModified, long localModified) {
+            this.eTag = eTag;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.localModified = localModified;
+        }
+
+        private static Record parse(String value) {
+            String[] fields = value.split("\\|", 4);
+            if (fields.length != 4) {
+                return null;
+            }
+            try {
+                return new Record(fields[3].isEmpty() ? null : fields[3],
+                        Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            // the ETag goes last, it is the only field that could contain the separator
+            return size + "|" + lastModified + "|" + localModified + "|" + Objects.toString(eTag, "");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferEngineTest {
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void upload_reportsEveryByteOnceAcrossRetries() throws Exception {
+        byte[] content = new byte[300_000];
+        new Random(1).nextBytes(content);
+        File file = tempDir.resolve("artifact.jar").toFile();
+        Files.write(file.toPath(), content);
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class))).thenAnswer(invocation -> {
+            AsyncRequestBody body = invocation.getArgument(1);
+            // the first attempt fails after some bytes, the retry sends everything again
+            drain(body, 100_000);
+            drain(body, Long.MAX_VALUE);
+            return CompletableFuture.completedFuture(PutObjectResponse.builder().eTag("\"etag\"").build());
+        });
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        new AsyncTransferEngine(s3AsyncClient, "bucket")
+                .upload("artifact.jar", file, false, (buffer, length) -> reported.write(buffer, 0, length))
+                .join();
+
+        assertArrayEquals(content, reported.toByteArray());
+    }
+
+    @Test
+    void join_rethrowsSdkExceptionOfFailedFuture() {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        future.completeExceptionally(NoSuchKeyException.builder().message("Not found").build());
+
+        assertThrows(NoSuchKeyException.class, () -> AsyncTransferEngine.join(future));
+    }
+
+    private static void drain(AsyncRequestBody body, long limit) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        body.subscribe(new Subscriber<ByteBuffer>() {
+            private Subscription subscription;
+            private long received;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                received += buffer.remaining();
+                if (received >= limit) {
+                    subscription.cancel();
+                    done.complete(null);
+                } else {
+                    subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AtomicFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void write_createsTheFoldersAndReportsTheContent() throws Exception {
+        byte[] content = randomBytes(1024 * 1024 + 17);
+        File destination = tempDir.resolve("com/example/1.0/example-1.0.jar").toFile();
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        long written = AtomicFileWriter.write(new ByteArrayInputStream(content), destination,
+                (buffer, length) -> reported.write(buffer, 0, length));
+
+        assertEquals(content.length, written);
+        assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        assertArrayEquals(content, reported.toByteArray());
+        assertEquals(1, destination.getParentFile().list().length);
+    }
+
+    @Test
+    void write_whenTheStreamFails_keepsThePreviousFile() throws Exception {
+        File destination = tempDir.resolve("example-1.0.jar").toFile();
+        Files.write(destination.toPath(), "previous".getBytes());
+        InputStream failing = new SequenceInputStream(new ByteArrayInputStream(randomBytes(1000)), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        assertThrows(IOException.class, () -> AtomicFileWriter.write(failing, destination, (buffer, length) -> { }));
+
+        assertEquals("previous", new String(Files.readAllBytes(destination.toPath())));
+        assertEquals(1, tempDir.toFile().list().length);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -20,9 +20,11 @@ import org.apache.maven.wagon.authentication.AuthenticationInfo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProviderChain;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -99,4 +101,38 @@ class AwsCredentialsFactoryTest {
         assertTrue(provider instanceof DefaultCredentialsProvider,
                 "Expected DefaultCredentialsProvider when profile is empty string");
     }
+
+    @Test
+    void connect_twice_sharesTheDefaultCredentialsProvider() {
+        assertSame(factory.connect(null, null), new AwsCredentialsFactory().connect(null, null));
+        assertSame(factory.connect(null, "maven"), new AwsCredentialsFactory().connect(null, "maven"));
+    }
+
+    @Test
+    void forClient_closesTheSharedProviderWithItsLastClient() {
+        SdkAutoCloseable first = (SdkAutoCloseable) AwsCredentialsFactory.forClient(null, "shared-test");
+        SdkAutoCloseable second = (SdkAutoCloseable) AwsCredentialsFactory.forClient(null, "shared-test");
+        AwsCredentialsProvider shared = factory.connect(null, "shared-test");
+
+        first.close();
+        first.close();
+        assertSame(shared, factory.connect(null, "shared-test"));
+
+        second.close();
+        assertNotSame(shared, factory.connect(null, "shared-test"));
+    }
+
+    @Test
+    void connect_withoutInstanceMetadata_returnsChainWithoutInstanceProfile() {
+        System.setProperty("S3_INSTANCE_METADATA", "false");
+        try {
+            AwsCredentialsProvider provider = factory.connect(null, null);
+
+            assertTrue(provider instanceof AwsCredentialsProviderChain,
+                    "Expected a credentials chain when the instance metadata is disabled");
+            assertFalse(provider.toString().contains("InstanceProfileCredentialsProvider"));
+        } finally {
+            System.clearProperty("S3_INSTANCE_METADATA");
+        }
+    }
 }
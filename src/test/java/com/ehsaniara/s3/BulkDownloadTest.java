@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkDownloadTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void download_writesAllObjectsAndCollectsFailures() throws Exception {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            String key = invocation.<GetObjectRequest>getArgument(0).key();
+            if (key.equals("a/missing.txt")) {
+                throw NoSuchKeyException.builder().message("Not found").build();
+            }
+            String contentType = key.endsWith("/") ? "application/x-directory" : "text/plain";
+            return response(key, contentType);
+        });
+
+        BulkDownload.Result result = new BulkDownload(s3Client, "bucket", tempDir.toString(), 3, 2)
+                .download(Arrays.asList("a/", "a/one.txt", "a/missing.txt", "a/b/two.txt").iterator());
+
+        assertEquals(4, result.getKeys());
+        assertEquals(2, result.getObjects());
+        assertEquals("a/one.txt".length() + "a/b/two.txt".length(), result.getBytes());
+        assertEquals(1, result.getFailures().size());
+        assertTrue(result.getFailures().get(0).getMessage().contains("a/missing.txt"));
+        assertEquals("a/one.txt", new String(Files.readAllBytes(tempDir.resolve("a/one.txt")), StandardCharsets.UTF_8));
+        assertEquals("a/b/two.txt", new String(Files.readAllBytes(tempDir.resolve("a/b/two.txt")), StandardCharsets.UTF_8));
+        try (Stream<Path> files = Files.list(tempDir.resolve("a"))) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void download_whenTheKeysFail_keepsTheObjectsListedSoFar() throws Exception {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation ->
+                response(invocation.<GetObjectRequest>getArgument(0).key(), "text/plain"));
+        Iterator<String> keys = new Iterator<String>() {
+            private boolean listed;
+
+            @Override
+            public boolean hasNext() {
+                if (listed) {
+                    throw new IllegalStateException("listing failed");
+                }
+                return true;
+            }
+
+            @Override
+            public String next() {
+                listed = true;
+                return "a/one.txt";
+            }
+        };
+
+        BulkDownload.Result result = new BulkDownload(s3Client, "bucket", tempDir.toString(), 2, 1).download(keys);
+
+        assertEquals(1, result.getObjects());
+        assertEquals(1, result.getFailures().size());
+        assertTrue(Files.isRegularFile(tempDir.resolve("a/one.txt")));
+    }
+
+    @Test
+    void download_whenInterrupted_cancelsAndKeepsTheInterrupt() {
+        Iterator<String> keys = new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public String next() {
+                Thread.currentThread().interrupt();
+                return "a/one.txt";
+            }
+        };
+
+        assertThrows(InterruptedException.class, () -> new BulkDownload(s3Client, "bucket", tempDir.toString(), 2, 1).download(keys));
+
+        assertTrue(Thread.interrupted());
+        assertFalse(Files.exists(tempDir.resolve("a/one.txt")));
+    }
+
+    private static ResponseInputStream<GetObjectResponse> response(String key, String contentType) {
+        byte[] content = key.getBytes(StandardCharsets.UTF_8);
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentType(contentType)
+                .contentLength((long) content.length)
+                .build();
+        return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(content)));
+    }
+}
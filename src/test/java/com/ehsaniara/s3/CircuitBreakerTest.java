@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new CircuitBreaker(3, Duration.ofSeconds(30), now::get);
+    }
+
+    @Test
+    void failed_inARow_opensTheCircuit() {
+        breaker.failed();
+        breaker.failed();
+        assertTrue(breaker.allow());
+
+        breaker.failed();
+
+        assertFalse(breaker.allow());
+    }
+
+    @Test
+    void succeeded_resetsTheFailures() {
+        breaker.failed();
+        breaker.failed();
+        breaker.succeeded();
+        breaker.failed();
+
+        assertTrue(breaker.allow());
+    }
+
+    @Test
+    void afterTheCooldown_letsOneProbeThrough() {
+        openCircuit();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertTrue(breaker.allow());
+        assertFalse(breaker.allow());
+
+        breaker.succeeded();
+
+        assertTrue(breaker.allow());
+        assertTrue(breaker.allow());
+    }
+
+    @Test
+    void failedProbe_reopensTheCircuitForAnotherCooldown() {
+        openCircuit();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertTrue(breaker.allow());
+
+        breaker.failed();
+        now.addAndGet(Duration.ofSeconds(29).toNanos());
+
+        assertFalse(breaker.allow());
+    }
+
+    @Test
+    void isUnavailable_onlyForServerAndConnectionErrors() {
+        assertTrue(CircuitBreaker.isUnavailable(S3Exception.builder().statusCode(503).build()));
+        assertTrue(CircuitBreaker.isUnavailable(SdkClientException.create("Unable to execute HTTP request", new ConnectException("Connection refused"))));
+        assertFalse(CircuitBreaker.isUnavailable(S3Exception.builder().statusCode(404).build()));
+        assertFalse(CircuitBreaker.isUnavailable(S3Exception.builder().statusCode(403).build()));
+    }
+
+    @Test
+    void isIgnored_forThrottlingAndCancelledRequests() {
+        S3Exception slowDown = (S3Exception) S3Exception.builder()
+                .statusCode(503)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("SlowDown").build())
+                .build();
+
+        assertTrue(CircuitBreaker.isIgnored(slowDown));
+        assertTrue(CircuitBreaker.isIgnored(S3Exception.builder().statusCode(429).build()));
+        assertTrue(CircuitBreaker.isIgnored(AbortedException.create("Thread was interrupted", new InterruptedIOException())));
+        assertFalse(CircuitBreaker.isIgnored(S3Exception.builder().statusCode(500).build()));
+        assertFalse(CircuitBreaker.isIgnored(SdkClientException.create("Unable to execute HTTP request", new SocketTimeoutException("Read timed out"))));
+    }
+
+    @Test
+    void throttling_doesNotOpenTheCircuit() {
+        Context.FailedExecution context = failure(S3Exception.builder().statusCode(429).build());
+
+        for (int i = 0; i < 5; i++) {
+            breaker.onExecutionFailure(context, new ExecutionAttributes());
+        }
+
+        assertTrue(breaker.allow());
+    }
+
+    @Test
+    void uncountedRequests_doNotOpenTheCircuit() {
+        Context.FailedExecution context = failure(S3Exception.builder().statusCode(500).build());
+
+        for (int i = 0; i < 5; i++) {
+            breaker.onExecutionFailure(context, new ExecutionAttributes().putAttribute(CircuitBreaker.UNCOUNTED, Boolean.TRUE));
+        }
+
+        assertTrue(breaker.allow());
+    }
+
+    private static Context.FailedExecution failure(Throwable exception) {
+        return new Context.FailedExecution() {
+            @Override
+            public Throwable exception() {
+                return exception;
+            }
+
+            @Override
+            public SdkRequest request() {
+                return null;
+            }
+
+            @Override
+            public Optional<SdkHttpRequest> httpRequest() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<SdkHttpResponse> httpResponse() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<SdkResponse> response() {
+                return Optional.empty();
+            }
+        };
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 3; i++) {
+            breaker.failed();
+        }
+        assertFalse(breaker.allow());
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactKeyListTest {
+
+    @Test
+    void get_andIterator_returnTheKeysInOrder() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add("com/example/artifact/1." + i + "/artifact-1." + i + ".jar");
+        }
+        keys.add("org/other/élève.pom");
+        keys.add("");
+
+        CompactKeyList compact = CompactKeyList.copyOf(keys);
+
+        assertEquals(keys.size(), compact.size());
+        assertEquals(keys, new ArrayList<>(compact));
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(keys.get(i), compact.get(i));
+        }
+        assertTrue(compact.contains("com/example/artifact/1.42/artifact-1.42.jar"));
+        assertThrows(UnsupportedOperationException.class, () -> compact.add("key"));
+        assertThrows(IndexOutOfBoundsException.class, () -> compact.get(keys.size()));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadBucketResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionWarmerTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Test
+    void warmUp_sendsOneHeadBucketPerConnection() throws Exception {
+        when(s3Client.headBucket(any(HeadBucketRequest.class))).thenReturn(HeadBucketResponse.builder().build());
+
+        assertTrue(ConnectionWarmer.warmUp(s3Client, "bucket", 4).await(10, TimeUnit.SECONDS));
+
+        verify(s3Client, times(4)).headBucket(argThat((HeadBucketRequest request) -> "bucket".equals(request.bucket())
+                && request.overrideConfiguration()
+                .map(configuration -> Boolean.TRUE.equals(configuration.executionAttributes().getAttribute(CircuitBreaker.UNCOUNTED)))
+                .orElse(false)));
+    }
+
+    @Test
+    void warmUp_whenTheBucketAnswersWithAnError_completes() throws Exception {
+        when(s3Client.headBucket(any(HeadBucketRequest.class))).thenThrow(S3Exception.builder().statusCode(403).build());
+
+        assertTrue(ConnectionWarmer.warmUp(s3Client, "bucket", 2).await(10, TimeUnit.SECONDS));
+
+        verify(s3Client, times(2)).headBucket(any(HeadBucketRequest.class));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileContentProviderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void newStream_readsTheRangeAndReportsIt() throws Exception {
+        byte[] content = randomBytes(10000);
+        File file = createFile(content);
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        try (FileContentProvider provider = new FileContentProvider(file, 1000, 5000, (buffer, length) -> reported.write(buffer, 0, length));
+             InputStream inputStream = provider.newStream()) {
+            assertArrayEquals(Arrays.copyOfRange(content, 1000, 6000), IOUtils.toByteArray(inputStream));
+        }
+
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 6000), reported.toByteArray());
+    }
+
+    @Test
+    void newStream_onRetry_reportsOnlyTheBytesNotSentBefore() throws Exception {
+        byte[] content = randomBytes(10000);
+        File file = createFile(content);
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        try (FileContentProvider provider = new FileContentProvider(file, 0, content.length, (buffer, length) -> reported.write(buffer, 0, length))) {
+            try (InputStream firstAttempt = provider.newStream()) {
+                assertEquals(3000, IOUtils.read(firstAttempt, new byte[3000]));
+            }
+            try (InputStream secondAttempt = provider.newStream()) {
+                byte[] buffer = new byte[4096];
+                // the retry gets further than the first attempt within its first chunk
+                assertEquals(4096, IOUtils.read(secondAttempt, buffer));
+                assertArrayEquals(Arrays.copyOf(content, 4096), buffer);
+                assertArrayEquals(Arrays.copyOfRange(content, 4096, content.length), IOUtils.toByteArray(secondAttempt));
+            }
+        }
+
+        assertArrayEquals(content, reported.toByteArray());
+    }
+
+    @Test
+    void newStream_onRetry_reportsTheFreshTailOfTheCallersBuffer() throws Exception {
+        byte[] content = randomBytes(10000);
+        File file = createFile(content);
+        byte[] buffer = new byte[4096];
+        List<int[]> reported = new ArrayList<>();
+        Progress progress = new Progress() {
+            @Override
+            public void progress(byte[] bytes, int length) {
+                fail("the slice should be reported with its offset");
+            }
+
+            @Override
+            public void progress(byte[] bytes, int offset, int length) {
+                assertSame(buffer, bytes);
+                reported.add(new int[]{offset, length});
+            }
+        };
+
+        try (FileContentProvider provider = new FileContentProvider(file, 0, content.length, progress)) {
+            try (InputStream firstAttempt = provider.newStream()) {
+                assertEquals(3000, IOUtils.read(firstAttempt, buffer, 0, 3000));
+            }
+            reported.clear();
+            try (InputStream secondAttempt = provider.newStream()) {
+                assertEquals(4096, IOUtils.read(secondAttempt, buffer));
+            }
+        }
+
+        assertEquals(1, reported.size());
+        assertEquals(3000, reported.get(0)[0]);
+        assertEquals(1096, reported.get(0)[1]);
+    }
+
+    @Test
+    void requestBody_hasTheLengthOfTheRange() {
+        FileContentProvider provider = new FileContentProvider(new File("unused"), 10, 20, (buffer, length) -> { });
+
+        assertEquals(Long.valueOf(20), provider.requestBody().optionalContentLength().orElse(null));
+    }
+
+    private File createFile(byte[] content) throws Exception {
+        File file = tempDir.resolve("artifact.jar").toFile();
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
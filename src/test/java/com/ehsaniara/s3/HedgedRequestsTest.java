@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgedRequestsTest {
+
+    @Test
+    void call_withoutKnownLatencies_sendsTheRequestOnce() {
+        HedgedRequests hedged = new HedgedRequests(new HedgingProperty("true", "50", "0", "100"));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals("response", hedged.call(() -> {
+            attempts.incrementAndGet();
+            return "response";
+        }, ignored -> { }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void call_whenSlow_takesTheFirstResponse() {
+        HedgedRequests hedged = warmedUp(new HedgingProperty("true", "50", "10", "100"));
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        String response = hedged.call(() -> attempts.incrementAndGet() == 1 ? slowly("slow") : "hedge", ignored -> { });
+
+        assertEquals("hedge", response);
+        assertEquals(2, attempts.get());
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+    }
+
+    @Test
+    void call_withoutBudget_waitsForTheSlowResponse() {
+        HedgedRequests hedged = warmedUp(new HedgingProperty("true", "50", "10", "0"));
+        AtomicInteger attempts = new AtomicInteger();
+
+        String response = hedged.call(() -> attempts.incrementAndGet() == 1 ? pause("slow", 300) : "hedge", ignored -> { });
+
+        assertEquals("slow", response);
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void call_whenTheHedgeIsAnsweredWithAnError_throwsIt() {
+        HedgedRequests hedged = warmedUp(new HedgingProperty("true", "50", "10", "100"));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(NoSuchKeyException.class, () -> hedged.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                return slowly("slow");
+            }
+            throw NoSuchKeyException.builder().statusCode(404).build();
+        }, ignored -> { }));
+    }
+
+    private static HedgedRequests warmedUp(HedgingProperty property) {
+        HedgedRequests hedged = new HedgedRequests(property);
+        for (int i = 0; i < 20; i++) {
+            hedged.call(() -> "fast", ignored -> { });
+        }
+        return hedged;
+    }
+
+    private static String slowly(String response) {
+        return pause(response, 5000);
+    }
+
+    private static String pause(String response, long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+}
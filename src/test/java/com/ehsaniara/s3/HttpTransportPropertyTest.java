@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTransportPropertyTest {
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("S3_HTTP_MAX_CONNECTIONS");
+    }
+
+    @Test
+    void empty_keepsSdkDefaults() {
+        HttpTransportProperty property = HttpTransportProperty.empty();
+
+        assertNull(property.getMaxConnections());
+        assertNull(property.getConnectionTtl());
+        assertNull(property.getTcpKeepAlive());
+        assertNull(property.getExpectContinue());
+        assertEquals(0, property.getSocketReceiveBufferSize());
+    }
+
+    @Test
+    void configuredValues_areParsed() {
+        HttpTransportProperty property = new HttpTransportProperty("128", "300", "30", "true", "512KB", "2MB", "false", "10");
+
+        assertEquals(Integer.valueOf(128), property.getMaxConnections());
+        assertEquals(Duration.ofMinutes(5), property.getConnectionTtl());
+        assertEquals(Duration.ofSeconds(30), property.getConnectionMaxIdleTime());
+        assertEquals(Boolean.TRUE, property.getTcpKeepAlive());
+        assertEquals(512 * ByteSize.KB, property.getSocketSendBufferSize());
+        assertEquals(2 * ByteSize.MB, property.getSocketReceiveBufferSize());
+        assertEquals(Boolean.FALSE, property.getExpectContinue());
+        assertEquals(Duration.ofSeconds(10), property.getConnectionAcquisitionTimeout());
+    }
+
+    @Test
+    void systemProperty_isUsedWhenNotConfigured() {
+        System.setProperty("S3_HTTP_MAX_CONNECTIONS", "200");
+
+        assertEquals(Integer.valueOf(200), HttpTransportProperty.empty().getMaxConnections());
+        assertEquals(Integer.valueOf(10), new HttpTransportProperty("10", null, null, null, null, null, null, null).getMaxConnections());
+    }
+
+    @Test
+    void key_differsForDifferentSettings() {
+        assertNotEquals(HttpTransportProperty.empty().key(),
+                new HttpTransportProperty("10", null, null, null, null, null, null, null).key());
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartUploadPropertyTest {
+
+    @Test
+    void empty_usesDefaults() {
+        MultipartUploadProperty property = MultipartUploadProperty.empty();
+
+        assertEquals(MultipartUploadProperty.DEFAULT_THRESHOLD, property.getThreshold());
+        assertEquals(MultipartUploadProperty.DEFAULT_PART_SIZE, property.getPartSize(100 * ByteSize.MB));
+        assertEquals(MultipartUploadProperty.DEFAULT_CONCURRENCY, property.getConcurrency());
+    }
+
+    @Test
+    void configuredValues_areParsedWithUnits() {
+        MultipartUploadProperty property = new MultipartUploadProperty("64MB", "16m", "8");
+
+        assertEquals(64 * ByteSize.MB, property.getThreshold());
+        assertEquals(16 * ByteSize.MB, property.getPartSize(100 * ByteSize.MB));
+        assertEquals(8, property.getConcurrency());
+    }
+
+    @Test
+    void getThreshold_isNeverBelowMinimumPartSize() {
+        MultipartUploadProperty property = new MultipartUploadProperty("1KB", null, null);
+
+        assertEquals(MultipartUploadProperty.MIN_PART_SIZE, property.getThreshold());
+    }
+
+    @Test
+    void getPartSize_scalesWithFileSize() {
+        MultipartUploadProperty property = MultipartUploadProperty.empty();
+
+        long partSize = property.getPartSize(50 * ByteSize.GB);
+
+        assertTrue(partSize > MultipartUploadProperty.DEFAULT_PART_SIZE);
+        assertTrue(50 * ByteSize.GB / partSize <= MultipartUploadProperty.TARGET_PARTS);
+        assertEquals(0, partSize % ByteSize.MB);
+    }
+
+    @Test
+    void getPartSize_neverExceedsPartLimit() {
+        MultipartUploadProperty property = MultipartUploadProperty.empty();
+
+        long contentLength = 5 * 1024 * ByteSize.GB;
+        long partSize = property.getPartSize(contentLength);
+
+        assertTrue((contentLength + partSize - 1) / partSize <= MultipartUploadProperty.MAX_PARTS);
+    }
+
+    @Test
+    void invalidSize_throwsIllegalArgumentException() {
+        MultipartUploadProperty property = new MultipartUploadProperty("lots", null, null);
+
+        assertThrows(IllegalArgumentException.class, property::getThreshold);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionedListingTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Test
+    void next_mergesPartitionsInKeyOrder() {
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(invocation -> {
+            if (!"repo/".equals(invocation.<ListObjectsV2Request>getArgument(0).prefix())) {
+                // the child prefixes have too many entries to be split further
+                return ListObjectsV2Response.builder().isTruncated(true).build();
+            }
+            return ListObjectsV2Response.builder()
+                    .contents(S3Object.builder().key("repo/a.txt").build(), S3Object.builder().key("repo/c.txt").build())
+                    .commonPrefixes(CommonPrefix.builder().prefix("repo/b/").build(), CommonPrefix.builder().prefix("repo/d/").build())
+                    .isTruncated(false)
+                    .build();
+        });
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class))).thenAnswer(invocation -> {
+            String prefix = invocation.<ListObjectsV2Request>getArgument(0).prefix();
+            ListObjectsV2Iterable partition = mock(ListObjectsV2Iterable.class);
+            when(partition.contents()).thenReturn(() -> Arrays.asList(
+                    S3Object.builder().key(prefix + "1").build(),
+                    S3Object.builder().key(prefix + "2").build()).iterator());
+            return partition;
+        });
+
+        List<String> keys = new ArrayList<>();
+        try (PartitionedListing listing = new PartitionedListing(s3Client, "bucket", "repo/", 4, 1000, null)) {
+            while (listing.hasNext()) {
+                keys.add(listing.next().key());
+            }
+        }
+
+        assertEquals(Arrays.asList("repo/a.txt", "repo/b/1", "repo/b/2", "repo/c.txt", "repo/d/1", "repo/d/2"), keys);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PrefixObjectsIteratorTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private ListObjectsV2Iterable listObjectsV2Iterable;
+
+    private static final String BUCKET = "test-bucket";
+    private static final String PREFIX = "test-prefix/";
+
+    @Test
+    void next_returnsListingMetadataOfRequestedPage() {
+        S3Object object = S3Object.builder()
+                .key("test-prefix/file2.txt")
+                .size(42L)
+                .eTag("\"etag\"")
+                .lastModified(Instant.ofEpochSecond(1000))
+                .build();
+        when(s3Client.listObjectsV2Paginator(argThat((ListObjectsV2Request request) ->
+                request.maxKeys() == 200 && "test-prefix/file1.txt".equals(request.startAfter()))))
+                .thenReturn(listObjectsV2Iterable);
+        when(listObjectsV2Iterable.contents())
+                .thenReturn(() -> Collections.singletonList(object).iterator());
+
+        PrefixObjectsIterator iterator = new PrefixObjectsIterator(s3Client, BUCKET, PREFIX, 200, "test-prefix/file1.txt");
+
+        assertEquals(object, iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void hasNext_rethrowsListingFailure() {
+        when(s3Client.listObjectsV2Paginator(argThat((ListObjectsV2Request request) -> PREFIX.equals(request.prefix()))))
+                .thenReturn(listObjectsV2Iterable);
+        when(listObjectsV2Iterable.contents())
+                .thenReturn(() -> new Iterator<S3Object>() {
+                    @Override
+                    public boolean hasNext() {
+                        throw SdkClientException.create("Connection reset");
+                    }
+
+                    @Override
+                    public S3Object next() {
+                        throw new IllegalStateException();
+                    }
+                });
+
+        PrefixObjectsIterator iterator = new PrefixObjectsIterator(s3Client, BUCKET, PREFIX);
+
+        assertThrows(SdkClientException.class, iterator::hasNext);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadBucketResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RegionCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path cacheFile;
+
+    @BeforeEach
+    void setUp() {
+        cacheFile = tempDir.resolve("cache/regions.properties");
+        System.setProperty(RegionCache.CACHE_FILE_PROP, cacheFile.toString());
+        RegionCache.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty(RegionCache.CACHE_FILE_PROP);
+        RegionCache.clear();
+    }
+
+    @Test
+    void resolve_withConfiguredRegion_returnsIt() {
+        assertEquals("eu-west-1", RegionCache.resolve("bucket", "eu-west-1"));
+        assertFalse(Files.exists(cacheFile));
+    }
+
+    @Test
+    void resolve_withCacheFile_usesTheStoredRegion() throws Exception {
+        Files.createDirectories(cacheFile.getParent());
+        Files.write(cacheFile, Collections.singletonList("stored-bucket=eu-north-1"));
+
+        assertEquals("eu-north-1", RegionCache.resolve("stored-bucket", null));
+    }
+
+    @Test
+    void resolve_withCacheFile_doesNotStoreTheRegionOfTheEnvironment() {
+        RegionCache.resolve("new-bucket", null);
+
+        assertFalse(Files.exists(cacheFile));
+    }
+
+    @Test
+    void learn_storesTheRegionReportedByS3() throws Exception {
+        S3Client s3Client = mock(S3Client.class);
+        when(s3Client.headBucket(any(HeadBucketRequest.class))).thenReturn(HeadBucketResponse.builder().bucketRegion("eu-south-1").build());
+
+        RegionCache.learn("learned-bucket", s3Client);
+        RegionCache.learn("learned-bucket", s3Client);
+
+        assertEquals("eu-south-1", load().getProperty("learned-bucket"));
+        assertEquals(1, cacheFile.getParent().toFile().list().length);
+        assertEquals("eu-south-1", RegionCache.resolve("learned-bucket", null));
+        verify(s3Client, times(1)).headBucket(any(HeadBucketRequest.class));
+    }
+
+    @Test
+    void learn_fromARedirect_storesTheRegionItNames() throws Exception {
+        S3Client s3Client = mock(S3Client.class);
+        when(s3Client.headBucket(any(HeadBucketRequest.class))).thenThrow(S3Exception.builder()
+                .statusCode(301)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                        .sdkHttpResponse(SdkHttpResponse.builder().statusCode(301).putHeader("x-amz-bucket-region", "ap-east-1").build())
+                        .build())
+                .build());
+
+        RegionCache.learn("moved-bucket", s3Client);
+
+        assertEquals("ap-east-1", load().getProperty("moved-bucket"));
+    }
+
+    private Properties load() throws Exception {
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(cacheFile)) {
+            properties.load(inputStream);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.retry.RetryMode;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPropertyTest {
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("S3_CIRCUIT_BREAKER_THRESHOLD");
+    }
+
+    @Test
+    void empty_keepsTheSdkRetriesWithoutACircuitBreaker() {
+        RetryProperty property = RetryProperty.empty();
+
+        assertNull(property.getMode());
+        assertNull(property.getMaxRetries());
+        assertNull(property.retryPolicy());
+        assertEquals(0, property.getCircuitBreakerThreshold());
+        assertEquals(Duration.ofSeconds(RetryProperty.DEFAULT_CIRCUIT_BREAKER_COOLDOWN_SECONDS), property.getCircuitBreakerCooldown());
+    }
+
+    @Test
+    void configuredValues_areParsed() {
+        RetryProperty property = new RetryProperty("standard", "5", "0", "10");
+
+        assertEquals(RetryMode.STANDARD, property.getMode());
+        assertEquals(Integer.valueOf(5), property.getMaxRetries());
+        assertEquals(0, property.getCircuitBreakerThreshold());
+        assertEquals(Duration.ofSeconds(10), property.getCircuitBreakerCooldown());
+        assertEquals(Integer.valueOf(5), property.retryPolicy().numRetries());
+    }
+
+    @Test
+    void maxRetries_withoutMode_keepsTheSdkRetryMode() {
+        assertEquals(Integer.valueOf(2), new RetryProperty(null, "2", null, null).retryPolicy().numRetries());
+    }
+
+    @Test
+    void systemProperty_isUsedWhenNotConfigured() {
+        System.setProperty("S3_CIRCUIT_BREAKER_THRESHOLD", "3");
+
+        assertEquals(3, RetryProperty.empty().getCircuitBreakerThreshold());
+        assertEquals(7, new RetryProperty(null, null, "7", null).getCircuitBreakerThreshold());
+    }
+
+    @Test
+    void key_differsForDifferentSettings() {
+        assertNotEquals(RetryProperty.empty().key(), new RetryProperty("legacy", null, null, null).key());
+    }
+}
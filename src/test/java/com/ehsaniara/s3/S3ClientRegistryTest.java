@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ClientRegistryTest {
+
+    private AuthenticationInfo authInfo;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("S3_CLIENT_IDLE_TIMEOUT", "0");
+        authInfo = new AuthenticationInfo();
+        authInfo.setUserName("testAccessKey");
+        authInfo.setPassword("testSecretKey");
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("S3_CLIENT_IDLE_TIMEOUT");
+    }
+
+    @Test
+    void acquire_withSameSettings_sharesClient() throws Exception {
+        try (S3ClientRegistry.Lease first = acquire("eu-west-1");
+             S3ClientRegistry.Lease second = acquire("eu-west-1");
+             S3ClientRegistry.Lease other = acquire("eu-west-2")) {
+
+            assertSame(first.getClient(), second.getClient());
+            assertNotSame(first.getClient(), other.getClient());
+        }
+    }
+
+    @Test
+    void release_ofLastLease_closesClientAfterIdleTimeout() throws Exception {
+        S3ClientRegistry.Lease first = acquire("eu-central-1");
+        S3ClientRegistry.Lease second = acquire("eu-central-1");
+
+        S3Client client = second.getClient();
+
+        first.close();
+        try (S3ClientRegistry.Lease third = acquire("eu-central-1")) {
+            assertSame(client, third.getClient());
+        }
+        second.close();
+
+        try (S3ClientRegistry.Lease fourth = acquire("eu-central-1")) {
+            assertNotSame(client, fourth.getClient());
+        }
+    }
+
+    @Test
+    void claimWarmUp_succeedsOncePerClient() throws Exception {
+        try (S3ClientRegistry.Lease first = acquire("ap-south-1");
+             S3ClientRegistry.Lease second = acquire("ap-south-1")) {
+
+            assertTrue(first.claimWarmUp());
+            assertFalse(second.claimWarmUp());
+        }
+    }
+
+    @Test
+    void acquireAsync_withSameSettings_sharesClient() throws Exception {
+        try (S3ClientRegistry.Lease first = acquireAsync("us-east-2");
+             S3ClientRegistry.Lease second = acquireAsync("us-east-2");
+             S3ClientRegistry.Lease sync = acquire("us-east-2")) {
+
+            assertSame(first.getAsyncClient(), second.getAsyncClient());
+            assertNotSame(first.getAsyncClient(), sync.getClient());
+        }
+    }
+
+    @Test
+    void acquire_whileAnotherClientIsBuilt_doesNotWaitForIt() throws Exception {
+        CountDownLatch connecting = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        AtomicInteger connects = new AtomicInteger();
+        S3ClientRegistry.Connector slow = () -> {
+            connects.incrementAndGet();
+            connecting.countDown();
+            awaitUninterruptibly(proceed);
+            return S3Connect.connect(authInfo, "eu-north-1", EndpointProperty.empty(), new PathStyleEnabledProperty("false"), null, HttpTransportProperty.empty(), RetryProperty.empty());
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<S3ClientRegistry.Lease> first = executor.submit(() -> S3ClientRegistry.acquire("slow", slow));
+            assertTrue(connecting.await(10, TimeUnit.SECONDS));
+            Future<S3ClientRegistry.Lease> second = executor.submit(() -> S3ClientRegistry.acquire("slow", slow));
+
+            try (S3ClientRegistry.Lease other = acquire("sa-east-1")) {
+                assertNotNull(other.getClient());
+            }
+            assertFalse(second.isDone());
+
+            proceed.countDown();
+            try (S3ClientRegistry.Lease firstLease = first.get(10, TimeUnit.SECONDS);
+                 S3ClientRegistry.Lease secondLease = second.get(10, TimeUnit.SECONDS)) {
+                assertSame(firstLease.getClient(), secondLease.getClient());
+            }
+            assertEquals(1, connects.get());
+        } finally {
+            proceed.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void acquire_whenConnectFails_letsTheNextCallerConnectAgain() {
+        S3ClientRegistry.Connector failing = () -> {
+            throw new IllegalStateException("no region");
+        };
+
+        assertThrows(IllegalStateException.class, () -> S3ClientRegistry.acquire("failing", failing));
+        assertThrows(IllegalStateException.class, () -> S3ClientRegistry.acquire("failing", failing));
+    }
+
+    @Test
+    void key_doesNotContainSecret() {
+        String key = S3ClientRegistry.key(authInfo, "eu-west-1", EndpointProperty.empty(), new PathStyleEnabledProperty("false"), null);
+
+        assertFalse(key.contains("testSecretKey"));
+        assertTrue(key.contains("testAccessKey"));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private S3ClientRegistry.Lease acquireAsync(String region) throws Exception {
+        return S3ClientRegistry.acquireAsync(authInfo, region, EndpointProperty.empty(), new PathStyleEnabledProperty("false"), null, MultipartUploadProperty.empty(), RetryProperty.empty());
+    }
+
+    private S3ClientRegistry.Lease acquire(String region) throws Exception {
+        return S3ClientRegistry.acquire(authInfo, region, EndpointProperty.empty(), new PathStyleEnabledProperty("false"), null, HttpTransportProperty.empty());
+    }
+}
@@ -16,24 +16,39 @@
 
 package com.ehsaniara.s3;
 
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
 import java.lang.reflect.Field;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -111,6 +126,25 @@ class S3StorageRepoTest {
         assertTrue(result.contains("repo/file2.txt"));
     }
 
+    @Test
+    void listChildren_listsOnlyTheImmediateLevel() {
+        ListObjectsV2Response page = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("repo/com/example/").build(),
+                        S3Object.builder().key("repo/com/example/maven-metadata.xml").build())
+                .commonPrefixes(CommonPrefix.builder().prefix("repo/com/example/1.0/").build(),
+                        CommonPrefix.builder().prefix("repo/com/example/1.1/").build())
+                .build();
+        when(s3Client.listObjectsV2Paginator(argThat((ListObjectsV2Request request) ->
+                "repo/com/example/".equals(request.prefix()) && "/".equals(request.delimiter()))))
+                .thenReturn(listObjectsV2Iterable);
+        when(listObjectsV2Iterable.iterator())
+                .thenReturn(Arrays.asList(page).iterator());
+
+        List<String> result = repo.listChildren("com/example");
+
+        assertEquals(Arrays.asList("maven-metadata.xml", "1.0/", "1.1/"), result);
+    }
+
     @Test
     void newResourceAvailable_whenResourceIsNewer_returnsTrue() throws Exception {
         Instant futureTime = Instant.now().plusSeconds(3600);
@@ -153,4 +187,406 @@ class S3StorageRepoTest {
         assertNotNull(publicRepo);
         assertEquals(BUCKET, publicRepo.getBucket());
     }
+
+    @Test
+    void put_aboveMultipartThreshold_uploadsInParts() throws Exception {
+        File file = createFile(11 * ByteSize.MB);
+        repo.setMultipartUploadProperty(new MultipartUploadProperty("5MB", "5MB", "2"));
+
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+
+        repo.put(file, "big.zip", (buffer, length) -> { });
+
+        verify(s3Client, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        verify(s3Client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void put_whenPartFailsOnce_retriesOnlyThatPart() throws Exception {
+        File file = createFile(6 * ByteSize.MB);
+        repo.setMultipartUploadProperty(new MultipartUploadProperty("5MB", "5MB", "1"));
+
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(SdkClientException.create("Connection reset"))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+
+        repo.put(file, "big.zip", (buffer, length) -> { });
+
+        verify(s3Client, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        verify(s3Client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void put_whenPartKeepsFailing_abortsUpload() throws Exception {
+        File file = createFile(6 * ByteSize.MB);
+        repo.setMultipartUploadProperty(new MultipartUploadProperty("5MB", "5MB", "1"));
+
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(SdkClientException.create("Connection reset"));
+
+        assertThrows(TransferFailedException.class,
+                () -> repo.put(file, "big.zip", (buffer, length) -> { }));
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void copy_belowRangedThreshold_usesSingleGet() throws Exception {
+        byte[] content = randomBytes(1000);
+        repo.setRangedDownloadProperty(new RangedDownloadProperty("1MB", "100", "2"));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(responseStream(content, 0, content.length));
+        File destination = tempDir.resolve("small.jar").toFile();
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        repo.copy("small.jar", destination, (buffer, length) -> reported.write(buffer, 0, length));
+
+        assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        assertArrayEquals(content, reported.toByteArray());
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void copy_aboveRangedThreshold_fetchesRangesAndReportsBytesInOrder() throws Exception {
+        byte[] content = randomBytes(1050);
+        repo.setRangedDownloadProperty(new RangedDownloadProperty("500", "100", "3"));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            if (request.range() == null) {
+                return responseStream(content, 0, content.length);
+            }
+            String[] range = request.range().substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(range[0]);
+            int end = Integer.parseInt(range[1]);
+            return responseStream(content, start, end - start + 1);
+        });
+        File destination = tempDir.resolve("big.jar").toFile();
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        repo.copy("big.jar", destination, (buffer, length) -> reported.write(buffer, 0, length));
+
+        assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        assertArrayEquals(content, reported.toByteArray());
+        // one full GET for the first range plus ten range requests
+        verify(s3Client, times(11)).getObject(any(GetObjectRequest.class));
+        assertEquals(1, tempDir.toFile().list().length);
+    }
+
+    @Test
+    void copy_whenRangeFails_leavesNoFileBehind() throws Exception {
+        byte[] content = randomBytes(1050);
+        repo.setRangedDownloadProperty(new RangedDownloadProperty("500", "100", "3"));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            if (request.range() == null) {
+                return responseStream(content, 0, content.length);
+            }
+            throw S3Exception.builder().statusCode(412).message("Precondition Failed").build();
+        });
+        File destination = tempDir.resolve("big.jar").toFile();
+
+        assertThrows(TransferFailedException.class, () -> repo.copy("big.jar", destination, (buffer, length) -> { }));
+
+        assertEquals(0, tempDir.toFile().list().length);
+    }
+
+    @Test
+    void copy_whenTheDownloadCannotBeMovedIntoPlace_leavesNoTemporaryFile() throws Exception {
+        byte[] content = randomBytes(1050);
+        repo.setRangedDownloadProperty(new RangedDownloadProperty("500", "100", "3"));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            if (request.range() == null) {
+                return responseStream(content, 0, content.length);
+            }
+            String[] range = request.range().substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(range[0]);
+            int end = Integer.parseInt(range[1]);
+            return responseStream(content, start, end - start + 1);
+        });
+        // a directory that is not empty cannot be replaced by the downloaded file
+        File destination = tempDir.resolve("big.jar").toFile();
+        Files.createDirectories(destination.toPath().resolve("nested"));
+
+        assertThrows(TransferFailedException.class, () -> repo.copy("big.jar", destination, (buffer, length) -> { }));
+
+        assertArrayEquals(new String[]{"big.jar"}, tempDir.toFile().list());
+    }
+
+    @Test
+    void copyToStream_writesAndReportsTheContent() throws Exception {
+        byte[] content = randomBytes(1000);
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(responseStream(content, 0, content.length));
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        repo.copyToStream("small.pom", written, (buffer, length) -> reported.write(buffer, 0, length));
+
+        assertArrayEquals(content, written.toByteArray());
+        assertArrayEquals(content, reported.toByteArray());
+    }
+
+    @Test
+    void putStream_ofUnknownLength_sendsSmallContentFromMemory() throws Exception {
+        byte[] content = randomBytes(1000);
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("etag").build());
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        repo.put(new ByteArrayInputStream(content), "small.pom", -1, (buffer, length) -> reported.write(buffer, 0, length));
+
+        verify(s3Client).putObject(argThat((PutObjectRequest request) -> request.contentLength() == 1000), any(RequestBody.class));
+        assertArrayEquals(content, reported.toByteArray());
+    }
+
+    @Test
+    void putStream_ofUnknownLength_aboveThresholdUploadsInParts() throws Exception {
+        byte[] content = randomBytes(6 * (int) ByteSize.MB);
+        repo.setMultipartUploadProperty(new MultipartUploadProperty("5MB", "5MB", "1"));
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+        repo.put(new ByteArrayInputStream(content), "big.zip", -1, (buffer, length) -> reported.write(buffer, 0, length));
+
+        verify(s3Client, times(2)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        assertArrayEquals(content, reported.toByteArray());
+    }
+
+    @Test
+    void copyIfNewer_whenNotModified_returnsFalseAndLeavesFileUntouched() throws Exception {
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(304).message("Not Modified").build());
+        File destination = tempDir.resolve("file.txt").toFile();
+        Files.write(destination.toPath(), "local".getBytes());
+        Runnable started = mock(Runnable.class);
+
+        boolean newer = repo.copyIfNewer("file.txt", destination, 1000L, (buffer, length) -> { }, started);
+
+        assertFalse(newer);
+        assertArrayEquals("local".getBytes(), Files.readAllBytes(destination.toPath()));
+        verify(started, never()).run();
+        verify(s3Client).getObject(argThat((GetObjectRequest request) ->
+                Instant.ofEpochMilli(1000L).equals(request.ifModifiedSince())));
+    }
+
+    @Test
+    void copyIfNewer_whenModified_downloadsAndRevalidatesWithETagNextTime() throws Exception {
+        byte[] content = randomBytes(100);
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(responseStream(content, 0, content.length));
+        File destination = tempDir.resolve("revalidated.txt").toFile();
+        Runnable started = mock(Runnable.class);
+
+        assertTrue(repo.copyIfNewer("revalidated.txt", destination, 0L, (buffer, length) -> { }, started));
+        assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        verify(started).run();
+
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(304).message("Not Modified").build());
+
+        assertFalse(repo.copyIfNewer("revalidated.txt", destination, 0L, (buffer, length) -> { }, started));
+        verify(s3Client).getObject(argThat((GetObjectRequest request) -> "\"etag\"".equals(request.ifNoneMatch())));
+    }
+
+    @Test
+    void copyIfNewerToStream_revalidatesAStreamedCopyWithETag() throws Exception {
+        byte[] content = randomBytes(100);
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentLength(100L)
+                .eTag("\"streamed\"")
+                .lastModified(Instant.ofEpochMilli(5000))
+                .build();
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenReturn(new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(content))));
+
+        assertTrue(repo.copyIfNewerToStream("streamed.xml", new ByteArrayOutputStream(), 0L, (buffer, length) -> { }, null));
+
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(304).message("Not Modified").build());
+
+        assertFalse(repo.copyIfNewerToStream("streamed.xml", new ByteArrayOutputStream(), 5000L, (buffer, length) -> { }, null));
+        verify(s3Client).getObject(argThat((GetObjectRequest request) -> "\"streamed\"".equals(request.ifNoneMatch())
+                && Instant.ofEpochMilli(5000L).equals(request.ifModifiedSince())));
+    }
+
+    @Test
+    void copyIfNewer_whenMissing_throwsResourceDoesNotExist() {
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().message("Not found").build());
+
+        assertThrows(ResourceDoesNotExistException.class, () ->
+                repo.copyIfNewer("missing.txt", tempDir.resolve("missing.txt").toFile(), 0L, (buffer, length) -> { }, () -> { }));
+    }
+
+    @Test
+    void copy_withArtifactCache_servesReleasesFromCacheAndReportsTheirBytes() throws Exception {
+        byte[] content = randomBytes(200);
+        repo.setArtifactCacheProperty(new ArtifactCacheProperty(tempDir.resolve("cache").toString(), "1MB", "60"));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(responseStream(content, 0, content.length));
+
+        for (String target : Arrays.asList("first/lib-1.0.jar", "second/lib-1.0.jar")) {
+            File destination = tempDir.resolve(target).toFile();
+            ByteArrayOutputStream reported = new ByteArrayOutputStream();
+
+            repo.copy("group/lib/1.0/lib-1.0.jar", destination, (buffer, length) -> reported.write(buffer, 0, length));
+
+            assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+            assertArrayEquals(content, reported.toByteArray());
+        }
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void copy_withArtifactCache_revalidatesMetadataWithETag() throws Exception {
+        byte[] content = randomBytes(50);
+        repo.setArtifactCacheProperty(new ArtifactCacheProperty(tempDir.resolve("cache").toString(), "1MB", "0"));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            if (request.ifNoneMatch() != null) {
+                throw S3Exception.builder().statusCode(304).message("Not Modified").build();
+            }
+            return responseStream(content, 0, content.length);
+        });
+        File destination = tempDir.resolve("maven-metadata.xml").toFile();
+
+        repo.copy("group/lib/maven-metadata.xml", destination, (buffer, length) -> { });
+        Files.delete(destination.toPath());
+        repo.copy("group/lib/maven-metadata.xml", destination, (buffer, length) -> { });
+
+        assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        verify(s3Client).getObject(argThat((GetObjectRequest request) -> "\"etag\"".equals(request.ifNoneMatch())));
+    }
+
+    @Test
+    void copy_withCorruptArtifactCacheEntry_revalidatesIt() throws Exception {
+        byte[] content = randomBytes(60);
+        Path cache = tempDir.resolve("cache");
+        repo.setArtifactCacheProperty(new ArtifactCacheProperty(cache.toString(), "1MB", "60"));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            if (request.ifNoneMatch() != null) {
+                throw S3Exception.builder().statusCode(304).message("Not Modified").build();
+            }
+            return responseStream(content, 0, content.length);
+        });
+        File destination = tempDir.resolve("maven-metadata.xml").toFile();
+
+        repo.copy("group/lib/maven-metadata.xml", destination, (buffer, length) -> { });
+        try (Stream<Path> files = Files.walk(cache)) {
+            for (Path sidecar : files.filter(path -> path.endsWith("entry.properties")).collect(Collectors.toList())) {
+                Files.write(sidecar, Files.readAllLines(sidecar).stream()
+                        .map(line -> line.startsWith("validated=") ? "validated=garbage" : line)
+                        .collect(Collectors.toList()));
+            }
+        }
+        repo.copy("group/lib/maven-metadata.xml", destination, (buffer, length) -> { });
+
+        assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        verify(s3Client).getObject(argThat((GetObjectRequest request) -> "\"etag\"".equals(request.ifNoneMatch())));
+    }
+
+    @Test
+    void copy_withUnusableArtifactCache_downloadsDirectly() throws Exception {
+        byte[] content = randomBytes(100);
+        File notADirectory = Files.write(tempDir.resolve("cache"), new byte[0]).toFile();
+        repo.setArtifactCacheProperty(new ArtifactCacheProperty(notADirectory.getPath(), "1MB", "60"));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(responseStream(content, 0, content.length));
+        File destination = tempDir.resolve("lib-1.0.jar").toFile();
+
+        repo.copy("group/lib/1.0/lib-1.0.jar", destination, (buffer, length) -> { });
+
+        assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+    }
+
+    @Test
+    void exists_withMetadataCache_remembersMissingKeysForTheSession() {
+        repo.setMetadataCache(new MetadataCache(100));
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().message("Not found").build());
+
+        assertFalse(repo.exists("missing.txt"));
+        assertFalse(repo.exists("missing.txt"));
+        assertThrows(ResourceDoesNotExistException.class, () ->
+                repo.copy("missing.txt", tempDir.resolve("missing.txt").toFile(), (buffer, length) -> { }));
+
+        verify(s3Client, times(1)).headObject(any(HeadObjectRequest.class));
+        verify(s3Client, never()).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void put_withMetadataCache_updatesHeadsAndListings() throws Exception {
+        MetadataCache metadataCache = new MetadataCache(100);
+        repo.setMetadataCache(metadataCache);
+        when(s3Client.listObjectsV2Paginator(any(ListObjectsV2Request.class)))
+                .thenReturn(listObjectsV2Iterable);
+        when(listObjectsV2Iterable.iterator())
+                .thenAnswer(invocation -> Arrays.asList(ListObjectsV2Response.builder()
+                        .contents(S3Object.builder().key("repo/a.txt").build())
+                        .build()).iterator());
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("\"etag\"").build());
+
+        assertEquals(1, repo.listChildren("").size());
+        assertEquals(1, repo.listChildren("").size());
+        repo.put(createFile(10), "b.txt", (buffer, length) -> { });
+
+        assertTrue(repo.exists("b.txt"));
+        repo.listChildren("");
+        verify(s3Client, never()).headObject(any(HeadObjectRequest.class));
+        verify(s3Client, times(2)).listObjectsV2Paginator(any(ListObjectsV2Request.class));
+        assertEquals(2, metadataCache.getHits());
+    }
+
+    @Test
+    void put_withMetadataCache_leavesTheModificationTimeToS3() throws Exception {
+        repo.setMetadataCache(new MetadataCache(100));
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().eTag("\"etag\"").build());
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().lastModified(Instant.ofEpochMilli(1000)).build());
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(304).message("Not Modified").build());
+
+        repo.put(createFile(10), "b.txt", (buffer, length) -> { });
+
+        // the local clock says nothing about the time S3 stored the upload at
+        assertFalse(repo.copyIfNewer("b.txt", tempDir.resolve("b.txt").toFile(), System.currentTimeMillis(), (buffer, length) -> { }, null));
+        verify(s3Client).getObject(any(GetObjectRequest.class));
+        assertTrue(repo.newResourceAvailable("b.txt", 500));
+        verify(s3Client).headObject(any(HeadObjectRequest.class));
+    }
+
+    private static ResponseInputStream<GetObjectResponse> responseStream(byte[] content, int offset, int length) {
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentLength((long) length)
+                .eTag("\"etag\"")
+                .build();
+        return new ResponseInputStream<>(response,
+                AbortableInputStream.create(new ByteArrayInputStream(content, offset, length)));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private File createFile(long length) throws Exception {
+        File file = tempDir.resolve("artifact-" + length).toFile();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(length);
+        }
+        return file;
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.events.SessionEvent;
+import org.apache.maven.wagon.events.SessionListener;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.events.TransferListener;
+import org.apache.maven.wagon.repository.Repository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3StorageWagonTest {
+
+    @Mock
+    private S3StorageRepo s3StorageRepo;
+
+    @Mock
+    private TransferListener transferListener;
+
+    private S3StorageWagon wagon;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        wagon = new S3StorageWagon();
+        wagon.setS3StorageRepo(s3StorageRepo);
+        wagon.setPutDirectoryThreads(3);
+        wagon.addTransferListener(transferListener);
+    }
+
+    @Test
+    void putDirectory_uploadsEveryFileWithRelativePath() throws Exception {
+        createFile("a.html");
+        createFile("css/site.css");
+        createFile("apidocs/com/example/Foo.html");
+
+        wagon.putDirectory(tempDir.toFile(), "site");
+
+        verify(s3StorageRepo).put(any(File.class), eq("site/a.html"), any(Progress.class));
+        verify(s3StorageRepo).put(any(File.class), eq("site/css/site.css"), any(Progress.class));
+        verify(s3StorageRepo).put(any(File.class), eq("site/apidocs/com/example/Foo.html"), any(Progress.class));
+        verify(transferListener, times(3)).transferCompleted(any(TransferEvent.class));
+    }
+
+    @Test
+    void putDirectory_whenOneFileFails_uploadsTheRestAndReportsOnce() throws Exception {
+        createFile("one.txt");
+        createFile("two.txt");
+        createFile("three.txt");
+        doAnswer(invocation -> {
+            if ("/two.txt".equals(invocation.getArgument(1))) {
+                throw new TransferFailedException("boom");
+            }
+            return null;
+        }).when(s3StorageRepo).put(any(File.class), any(), any(Progress.class));
+
+        TransferFailedException exception = assertThrows(TransferFailedException.class,
+                () -> wagon.putDirectory(tempDir.toFile(), "."));
+
+        assertTrue(exception.getMessage().contains("1 of 3"));
+        verify(s3StorageRepo, times(3)).put(any(File.class), any(), any(Progress.class));
+        verify(transferListener, times(2)).transferCompleted(any(TransferEvent.class));
+        verify(transferListener).transferError(any(TransferEvent.class));
+    }
+
+    @Test
+    void putDirectory_async_whenAnUploadCannotStart_reportsItWithoutWaitingForIt() throws Exception {
+        createFile("one.txt");
+        createFile("two.txt");
+        when(s3StorageRepo.isAsync()).thenReturn(true);
+        when(s3StorageRepo.getAsyncEngineProperty()).thenReturn(new AsyncEngineProperty("true", "1"));
+        when(s3StorageRepo.putAsync(any(File.class), any(), any(Progress.class))).thenAnswer(invocation -> {
+            if ("site/two.txt".equals(invocation.getArgument(1))) {
+                throw new IllegalStateException("boom");
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+
+        TransferFailedException exception = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(TransferFailedException.class, () -> wagon.putDirectory(tempDir.toFile(), "site")));
+
+        assertTrue(exception.getMessage().contains("1 of 2"));
+        verify(transferListener).transferCompleted(any(TransferEvent.class));
+        verify(transferListener).transferError(any(TransferEvent.class));
+    }
+
+    @Test
+    void get_concurrently_reportsProgressOnTheResourceOfEachTransfer() throws Exception {
+        doAnswer(invocation -> {
+            byte[] name = invocation.<String>getArgument(0).getBytes();
+            for (int i = 0; i < 100; i++) {
+                invocation.<Progress>getArgument(2).progress(name, name.length);
+            }
+            return null;
+        }).when(s3StorageRepo).copy(any(), any(File.class), any(Progress.class));
+        Queue<String> mismatches = new ConcurrentLinkedQueue<>();
+        doAnswer(invocation -> {
+            TransferEvent event = invocation.getArgument(0);
+            String reported = new String(invocation.<byte[]>getArgument(1), 0, invocation.<Integer>getArgument(2));
+            if (!event.getResource().getName().equals(reported)) {
+                mismatches.add(reported + " reported on " + event.getResource().getName());
+            }
+            return null;
+        }).when(transferListener).transferProgress(any(TransferEvent.class), any(byte[].class), anyInt());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> transfers = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                final String resourceName = "com/example/artifact-" + i + ".jar";
+                transfers.add(executor.submit(() -> {
+                    wagon.get(resourceName, tempDir.resolve("artifact.jar").toFile());
+                    return null;
+                }));
+            }
+            for (Future<?> transfer : transfers) {
+                transfer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(mismatches.isEmpty(), mismatches.toString());
+        verify(transferListener, times(32)).transferCompleted(any(TransferEvent.class));
+    }
+
+    @Test
+    void getToStream_firesTheEventsWithoutALocalFile() throws Exception {
+        wagon.getToStream("com/example/maven-metadata.xml", new ByteArrayOutputStream());
+
+        verify(s3StorageRepo).copyToStream(eq("com/example/maven-metadata.xml"), any(OutputStream.class), any(Progress.class));
+        verify(transferListener).transferStarted(any(TransferEvent.class));
+        verify(transferListener).transferCompleted(any(TransferEvent.class));
+    }
+
+    @Test
+    void getIfNewerToStream_firesTheEventsWithoutALocalFile() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(4).run();
+            return true;
+        }).when(s3StorageRepo).copyIfNewerToStream(eq("com/example/maven-metadata.xml"), any(OutputStream.class), eq(42L), any(Progress.class), any(Runnable.class));
+
+        assertTrue(wagon.getIfNewerToStream("com/example/maven-metadata.xml", new ByteArrayOutputStream(), 42L));
+
+        verify(transferListener).transferStarted(argThat((TransferEvent event) -> event.getLocalFile() == null));
+        verify(transferListener).transferCompleted(any(TransferEvent.class));
+    }
+
+    @Test
+    void getIfNewer_whenNotModified_firesNoTransferEvents() throws Exception {
+        when(s3StorageRepo.copyIfNewer(eq("com/example/maven-metadata.xml"), any(File.class), eq(42L), any(Progress.class), any(Runnable.class)))
+                .thenReturn(false);
+
+        assertFalse(wagon.getIfNewer("com/example/maven-metadata.xml", tempDir.resolve("maven-metadata.xml").toFile(), 42L));
+
+        verify(transferListener, never()).transferInitiated(any(TransferEvent.class));
+        verify(transferListener, never()).transferCompleted(any(TransferEvent.class));
+    }
+
+    @Test
+    void putFromStream_firesTheEventsWithoutALocalFile() throws Exception {
+        wagon.putFromStream(new ByteArrayInputStream(new byte[]{1, 2, 3}), "com/example/lib-1.0.pom", 3, 0);
+
+        verify(s3StorageRepo).put(any(InputStream.class), eq("com/example/lib-1.0.pom"), eq(3L), any(Progress.class));
+        verify(transferListener).transferStarted(argThat((TransferEvent event) ->
+                event.getLocalFile() == null && event.getResource().getContentLength() == 3));
+        verify(transferListener).transferCompleted(any(TransferEvent.class));
+    }
+
+    @Test
+    void connect_lazily_createsNoClientBeforeTheFirstTransfer() throws Exception {
+        S3StorageWagon lazyWagon = new S3StorageWagon();
+        lazyWagon.setLazyConnect(true);
+        SessionListener sessionListener = mock(SessionListener.class);
+        lazyWagon.addSessionListener(sessionListener);
+
+        lazyWagon.connect(new Repository("lazy", "s3://lazy-bucket/repo"));
+
+        Field clientLease = S3StorageRepo.class.getDeclaredField("clientLease");
+        clientLease.setAccessible(true);
+        assertNull(clientLease.get(lazyWagon.getS3StorageRepo()));
+        verify(sessionListener).sessionOpened(any(SessionEvent.class));
+
+        lazyWagon.disconnect();
+        verify(sessionListener).sessionDisconnected(any(SessionEvent.class));
+    }
+
+    private void createFile(String relativePath) throws Exception {
+        Path path = tempDir.resolve(relativePath);
+        Files.createDirectories(path.getParent());
+        Files.write(path, relativePath.getBytes());
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.aether.spi.connector.transport.TransportListener;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3TransporterTest {
+
+    @Mock
+    private S3StorageRepo s3StorageRepo;
+
+    @Mock
+    private S3Client s3Client;
+
+    @TempDir
+    Path tempDir;
+
+    private S3Transporter transporter;
+
+    @BeforeEach
+    void setUp() {
+        transporter = new S3Transporter(s3StorageRepo);
+    }
+
+    @Test
+    void get_withoutDataFile_streamsIntoTheTask() throws Exception {
+        doAnswer(invocation -> {
+            byte[] content = "<metadata/>".getBytes(StandardCharsets.UTF_8);
+            invocation.<OutputStream>getArgument(1).write(content);
+            invocation.<Progress>getArgument(2).progress(content, content.length);
+            return null;
+        }).when(s3StorageRepo).copyToStream(eq("com/example/maven-metadata.xml"), any(OutputStream.class), any(Progress.class));
+        GetTask task = new GetTask(URI.create("com/example/maven-metadata.xml"));
+
+        transporter.get(task);
+
+        assertEquals("<metadata/>", task.getDataString());
+    }
+
+    @Test
+    void put_withoutDataFile_uploadsTheBytes() throws Exception {
+        PutTask task = new PutTask(URI.create("com/example/foo.pom")).setDataString("<project/>");
+
+        transporter.put(task);
+
+        verify(s3StorageRepo).put(any(InputStream.class), eq("com/example/foo.pom"), eq(10L), any(Progress.class));
+    }
+
+    @Test
+    void put_whenCancelledDuringAMultipartUpload_reportsTheCancellation() throws Exception {
+        File file = tempDir.resolve("big.zip").toFile();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(6 * ByteSize.MB);
+        }
+        S3StorageRepo repo = new S3StorageRepo("bucket", "repo/", new PublicReadProperty(false));
+        repo.setMultipartUploadProperty(new MultipartUploadProperty("5MB", "5MB", "2"));
+        Field s3ClientField = S3StorageRepo.class.getDeclaredField("s3Client");
+        s3ClientField.setAccessible(true);
+        s3ClientField.set(repo, s3Client);
+
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            // the SDK reads the body on the part's worker thread and wraps what the read throws
+            try (InputStream content = invocation.<RequestBody>getArgument(1).contentStreamProvider().newStream()) {
+                IOUtils.consume(content);
+            } catch (RuntimeException e) {
+                throw SdkClientException.create("Unable to execute HTTP request", e);
+            }
+            return UploadPartResponse.builder().eTag("etag").build();
+        });
+        PutTask task = new PutTask(URI.create("com/example/big.zip")).setDataFile(file).setListener(new TransportListener() {
+            @Override
+            public void transportProgressed(ByteBuffer data) throws TransferCancelledException {
+                throw new TransferCancelledException();
+            }
+        });
+
+        assertThrows(TransferCancelledException.class, () -> new S3Transporter(repo).put(task));
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void peek_whenMissing_isClassifiedAsNotFound() {
+        when(s3StorageRepo.exists("com/example/missing.jar")).thenReturn(false);
+
+        Exception e = assertThrows(ResourceDoesNotExistException.class,
+                () -> transporter.peek(new PeekTask(URI.create("com/example/missing.jar"))));
+
+        assertEquals(Transporter.ERROR_NOT_FOUND, transporter.classify(e));
+    }
+
+    @Test
+    void close_disconnectsTheRepository() {
+        transporter.close();
+        transporter.close();
+
+        verify(s3StorageRepo, times(1)).disconnect();
+    }
+
+    @Test
+    void factory_rejectsOtherSchemes() {
+        RemoteRepository repository = new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2").build();
+
+        assertThrows(NoTransporterException.class,
+                () -> new S3TransporterFactory().newInstance(new DefaultRepositorySystemSession(), repository));
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Jay Ehsaniara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.ehsaniara.s3;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncStateTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void changedKeys_skipsObjectsDownloadedInAnEarlierRun() throws Exception {
+        File stateFile = tempDir.resolve(SyncState.DEFAULT_FILE_NAME).toFile();
+        SyncState first = new SyncState(tempDir.toFile(), stateFile);
+        assertEquals(Arrays.asList("a.txt", "b.txt"), drain(first.changedKeys(Arrays.asList(object("a.txt", "\"1\""), object("b.txt", "\"1\"")).iterator())));
+        first.written("a.txt", response("\"1\""), write("a.txt"));
+        first.written("b.txt", response("\"1\""), write("b.txt"));
+        first.save();
+
+        SyncState second = new SyncState(tempDir.toFile(), stateFile);
+        List<String> changed = drain(second.changedKeys(Arrays.asList(object("a.txt", "\"1\""), object("b.txt", "\"2\"")).iterator()));
+
+        assertEquals(Collections.singletonList("b.txt"), changed);
+        assertEquals(1, second.getUnchanged());
+    }
+
+    @Test
+    void changedKeys_downloadsLocallyModifiedFileAgain() throws Exception {
+        File stateFile = tempDir.resolve(SyncState.DEFAULT_FILE_NAME).toFile();
+        SyncState first = new SyncState(tempDir.toFile(), stateFile);
+        File file = write("a.txt");
+        first.written("a.txt", response("\"1\""), file);
+        first.save();
+        assertTrue(file.setLastModified(file.lastModified() - 60_000));
+
+        SyncState second = new SyncState(tempDir.toFile(), stateFile);
+
+        assertEquals(Collections.singletonList("a.txt"), drain(second.changedKeys(Collections.singletonList(object("a.txt", "\"1\"")).iterator())));
+    }
+
+    @Test
+    void deleteUnlisted_removesFilesOfDeletedKeys() throws Exception {
+        File stateFile = tempDir.resolve(SyncState.DEFAULT_FILE_NAME).toFile();
+        SyncState first = new SyncState(tempDir.toFile(), stateFile);
+        first.written("keep/a.txt", response("\"1\""), write("keep/a.txt"));
+        first.written("gone/b.txt", response("\"1\""), write("gone/b.txt"));
+        first.save();
+
+        SyncState second = new SyncState(tempDir.toFile(), stateFile);
+        drain(second.changedKeys(Collections.singletonList(object("keep/a.txt", "\"1\"")).iterator()));
+
+        assertEquals(1, second.deleteUnlisted());
+
+        assertTrue(Files.exists(tempDir.resolve("keep/a.txt")));
+        assertFalse(Files.exists(tempDir.resolve("gone")));
+        assertTrue(stateFile.isFile());
+    }
+
+    @Test
+    void deleteUnlisted_leavesFilesItNeverDownloaded() throws Exception {
+        File stateFile = tempDir.resolve(SyncState.DEFAULT_FILE_NAME).toFile();
+        SyncState first = new SyncState(tempDir.toFile(), stateFile);
+        first.written("repo/a.txt", response("\"1\""), write("repo/a.txt"));
+        first.save();
+        write("notes.txt");
+        write("repo/local.txt");
+        Files.createDirectories(tempDir.resolve("empty"));
+
+        SyncState second = new SyncState(tempDir.toFile(), stateFile);
+        drain(second.changedKeys(Collections.<S3Object>emptyList().iterator()));
+
+        assertEquals(1, second.deleteUnlisted());
+
+        assertFalse(Files.exists(tempDir.resolve("repo/a.txt")));
+        assertTrue(Files.exists(tempDir.resolve("notes.txt")));
+        assertTrue(Files.exists(tempDir.resolve("repo/local.txt")));
+        assertTrue(Files.isDirectory(tempDir.resolve("empty")));
+    }
+
+    private File write(String key) throws Exception {
+        Path path = tempDir.resolve(key);
+        Files.createDirectories(path.getParent());
+        return Files.write(path, key.getBytes()).toFile();
+    }
+
+    private static S3Object object(String key, String eTag) {
+        return S3Object.builder().key(key).eTag(eTag).size((long) key.length()).build();
+    }
+
+    private static GetObjectResponse response(String eTag) {
+        return GetObjectResponse.builder().eTag(eTag).build();
+    }
+
+    private static List<String> drain(Iterator<String> iterator) {
+        List<String> keys = new ArrayList<>();
+        iterator.forEachRemaining(keys::add);
+        return keys;
+    }
+}